@@ -0,0 +1,665 @@
+package graphproblem.logic;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+import graphproblem.model.TripCount;
+
+/**
+ * Read-only graph which stores its edges as variable length encoded bytes and
+ * answers the queries of {@link GraphProcessor} directly on that encoding.
+ *
+ * <p>
+ * The outgoing edges of a node are sorted by destination, keeping edges to
+ * the same destination in the order they were added. Each edge is written as
+ * two unsigned LEB128 varints: the gap to the previous destination index and
+ * the distance minus one. Edge distances are positive and usually small, so a
+ * typical edge takes two or three bytes. Incoming edges are stored the same
+ * way to support the trip counting queries. Nodes are kept as a sorted array
+ * of their values, so no {@link Node} or {@link Edge} objects are retained.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link GraphProcessor} the queries do not print their results. An
+ * instance can be used by several threads at the same time.
+ * </p>
+ *
+ * @author jojo
+ */
+public class CompressedGraph implements IndexedAdjacency
+{
+	private final char[] values;
+	private final int[] edgeOffsets;
+	private final byte[] edgeBytes;
+	private final int[] inEdgeOffsets;
+	private final byte[] inEdgeBytes;
+	private final int edgeCount;
+	private final int maxDegree;
+
+	private CompressedGraph(char[] values, int[] edgeOffsets, byte[] edgeBytes, int[] inEdgeOffsets,
+			byte[] inEdgeBytes, int edgeCount, int maxDegree)
+	{
+		this.values = values;
+		this.edgeOffsets = edgeOffsets;
+		this.edgeBytes = edgeBytes;
+		this.inEdgeOffsets = inEdgeOffsets;
+		this.inEdgeBytes = inEdgeBytes;
+		this.edgeCount = edgeCount;
+		this.maxDegree = maxDegree;
+	}
+
+	/**
+	 * @return the number of edges.
+	 */
+	public int getEdgeCount()
+	{
+		return edgeCount;
+	}
+
+	/**
+	 * @return the number of bytes used by the arrays of this graph.
+	 */
+	public long getSizeInBytes()
+	{
+		return 2L * values.length + 4L * (edgeOffsets.length + inEdgeOffsets.length) + edgeBytes.length
+				+ inEdgeBytes.length;
+	}
+
+	@Override
+	public int getNodeCount()
+	{
+		return values.length;
+	}
+
+	@Override
+	public int indexOf(Node<Character> node)
+	{
+		int index = Arrays.binarySearch(values, node.getValue());
+		return index < 0 ? -1 : index;
+	}
+
+	@Override
+	public Node<Character> getNode(int index)
+	{
+		return new Node<Character>(values[index]);
+	}
+
+	@Override
+	public int getMaxDegree()
+	{
+		return maxDegree;
+	}
+
+	@Override
+	public int getEdges(int node, int[] targets, int[] distances)
+	{
+		return decode(edgeBytes, edgeOffsets[node], edgeOffsets[node + 1], targets, distances);
+	}
+
+	@Override
+	public int getInEdges(int node, int[] sources, int[] distances)
+	{
+		return decode(inEdgeBytes, inEdgeOffsets[node], inEdgeOffsets[node + 1], sources, distances);
+	}
+
+	private static int decode(byte[] bytes, int position, int end, int[] nodes, int[] distances)
+	{
+		int count = 0;
+		int node = 0;
+		while (position < end)
+		{
+			int gap = 0;
+			int shift = 0;
+			byte current;
+			do
+			{
+				current = bytes[position++];
+				gap |= (current & 0x7F) << shift;
+				shift += 7;
+			}
+			while (current < 0);
+
+			int distance = 0;
+			shift = 0;
+			do
+			{
+				current = bytes[position++];
+				distance |= (current & 0x7F) << shift;
+				shift += 7;
+			}
+			while (current < 0);
+
+			node += gap;
+			nodes[count] = node;
+			distances[count++] = distance + 1;
+		}
+
+		return count;
+	}
+
+	/**
+	 * See {@link GraphProcessor#findDistanceWithExactNodeStop(List)}.
+	 *
+	 * @param nodes
+	 *            the {@code List} of nodes.
+	 * @return the distance of the route, else returns -1 if no route is
+	 *         possible.
+	 */
+	public int findDistanceWithExactNodeStop(List<Node<Character>> nodes)
+	{
+		if (nodes == null || nodes.size() < 2 || nodes.contains(null))
+		{
+			return -1;
+		}
+
+		int[] targets = new int[maxDegree];
+		int[] distances = new int[maxDegree];
+		int currentNode = indexOf(nodes.get(0));
+		int distance = 0;
+
+		for (int count = 1; count < nodes.size(); count++)
+		{
+			int nextNode = indexOf(nodes.get(count));
+			if (currentNode < 0 || nextNode < 0)
+			{
+				return -1;
+			}
+
+			int edges = getEdges(currentNode, targets, distances);
+			int edge = 0;
+			while (edge < edges && targets[edge] < nextNode)
+			{
+				edge++;
+			}
+
+			if (edge == edges || targets[edge] != nextNode)
+			{
+				return -1;
+			}
+
+			distance += distances[edge];
+			currentNode = nextNode;
+		}
+
+		return distance;
+	}
+
+	/**
+	 * See {@link GraphProcessor#findTripsWithExactStopCount(int, Node, Node)}.
+	 *
+	 * @param stopCount
+	 *            exact number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @return maximum number of possible trips.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
+	 */
+	public int findTripsWithExactStopCount(int stopCount, Node<Character> node1, Node<Character> node2)
+	{
+		return GraphProcessor.toIntExact(countTripsWithExactStopCount(stopCount, node1, node2,
+				CountingMode.saturating()));
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithExactStopCount(int, Node, Node, CountingMode)}.
+	 *
+	 * @param stopCount
+	 *            exact number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithExactStopCount(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(stopCount, "stopCount");
+		rejectIfNull(mode, "mode");
+
+		return new TripCounter(this, null).countByStops(indexOf(node1), indexOf(node2), stopCount, true,
+				mode);
+	}
+
+	/**
+	 * See {@link GraphProcessor#findTripWithMaxStopCountLimit(int, Node, Node)}.
+	 *
+	 * @param stopCount
+	 *            maximum number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @return maximum number of possible trips.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
+	 */
+	public int findTripWithMaxStopCountLimit(int stopCount, Node<Character> node1, Node<Character> node2)
+	{
+		return GraphProcessor.toIntExact(countTripsWithMaxStopCountLimit(stopCount, node1, node2,
+				CountingMode.saturating()));
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithMaxStopCountLimit(int, Node, Node, CountingMode)}.
+	 *
+	 * @param stopCount
+	 *            maximum number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithMaxStopCountLimit(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(stopCount, "stopCount");
+		rejectIfNull(mode, "mode");
+
+		return new TripCounter(this, null).countByStops(indexOf(node1), indexOf(node2), stopCount, false,
+				mode);
+	}
+
+	/**
+	 * See {@link GraphProcessor#findTripsWithMaxDistanceLimit(int, Node, Node)}.
+	 *
+	 * @param maxDistance
+	 *            the given maximum distance limit.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the destination node.
+	 * @return the maximum number of trips.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code maxDistance} is less than or equals to zero</li>
+	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
+	 */
+	public int findTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1, Node<Character> node2)
+	{
+		return GraphProcessor.toIntExact(countTripsWithMaxDistanceLimit(maxDistance, node1, node2,
+				CountingMode.saturating()));
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithMaxDistanceLimit(int, Node, Node, CountingMode)}.
+	 *
+	 * @param maxDistance
+	 *            the given maximum distance limit.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the destination node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code maxDistance} is less than or equals to zero</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(maxDistance, "maxDistance");
+		rejectIfNull(mode, "mode");
+
+		return new TripCounter(this, null).countByDistance(indexOf(node1), indexOf(node2), maxDistance,
+				mode);
+	}
+
+	/**
+	 * See {@link GraphProcessor#findShortestPathBasedOnDistance(Node, Node)}.
+	 *
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @return the shorted distance between {@code node1} and {@code node2} if
+	 *         they are in a connected graph, else returns -1.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             </ul>
+	 */
+	public int findShortestPathBasedOnDistance(Node<Character> node1, Node<Character> node2)
+	{
+		int source = indexOf(rejectIfNull(node1, "node1"));
+		int target = indexOf(rejectIfNull(node2, "node2"));
+		if (source < 0 || target < 0)
+		{
+			return -1;
+		}
+
+		int[] targets = new int[maxDegree];
+		int[] distances = new int[maxDegree];
+		int[] shortestDistances = new int[values.length];
+		Arrays.fill(shortestDistances, Integer.MAX_VALUE);
+		DistanceHeap heap = new DistanceHeap();
+
+		// the trip has to contain at least one edge, so the search starts from
+		// the neighbours of node1 rather than from node1 itself.
+		int edges = getEdges(source, targets, distances);
+		for (int edge = 0; edge < edges; edge++)
+		{
+			if (distances[edge] < shortestDistances[targets[edge]])
+			{
+				shortestDistances[targets[edge]] = distances[edge];
+				heap.add(distances[edge], targets[edge]);
+			}
+		}
+
+		while (!heap.isEmpty())
+		{
+			long entry = heap.remove();
+			int distance = DistanceHeap.getDistance(entry);
+			int node = DistanceHeap.getNode(entry);
+			if (distance > shortestDistances[node])
+			{
+				continue;
+			}
+
+			if (node == target)
+			{
+				return distance;
+			}
+
+			edges = getEdges(node, targets, distances);
+			for (int edge = 0; edge < edges; edge++)
+			{
+				long nextDistance = (long) distance + distances[edge];
+				if (nextDistance < shortestDistances[targets[edge]])
+				{
+					shortestDistances[targets[edge]] = (int) nextDistance;
+					heap.add((int) nextDistance, targets[edge]);
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Collects edges in primitive arrays and encodes them into a
+	 * {@link CompressedGraph}, so large graphs never have to be held as
+	 * {@link Node} and {@link Edge} objects.
+	 */
+	public static class Builder
+	{
+		private char[] parents = new char[16];
+		private char[] children = new char[16];
+		private int[] distances = new int[16];
+		private int size;
+
+		/**
+		 * Adds an edge to the graph.
+		 *
+		 * @param node
+		 *            parent {@link Node} of {@code edge}.
+		 * @param edge
+		 *            an {@link Edge}.
+		 * @return this {@link Builder}.
+		 * @throws IllegalArgumentException
+		 *             if any of the following condition is satisfied.
+		 *             <ul>
+		 *             <li>{@code node} is {@code null}</li>
+		 *             <li>{@code edge} is {@code null}</li>
+		 *             </ul>
+		 */
+		public Builder addEdge(Node<Character> node, Edge<Character> edge)
+		{
+			rejectIfNull(node, "node");
+			rejectIfNull(edge, "edge");
+
+			if (size == parents.length)
+			{
+				parents = Arrays.copyOf(parents, size * 2);
+				children = Arrays.copyOf(children, size * 2);
+				distances = Arrays.copyOf(distances, size * 2);
+			}
+
+			parents[size] = node.getValue();
+			children[size] = edge.getNode().getValue();
+			distances[size++] = edge.getDistance();
+			return this;
+		}
+
+		/**
+		 * @return the {@link CompressedGraph} of all edges added so far.
+		 */
+		public CompressedGraph build()
+		{
+			int[] indexByValue = new int[Character.MAX_VALUE + 1];
+			Arrays.fill(indexByValue, -1);
+			for (int edge = 0; edge < size; edge++)
+			{
+				indexByValue[parents[edge]] = 0;
+				indexByValue[children[edge]] = 0;
+			}
+
+			int nodeCount = 0;
+			for (int value = 0; value <= Character.MAX_VALUE; value++)
+			{
+				if (indexByValue[value] == 0)
+				{
+					indexByValue[value] = nodeCount++;
+				}
+			}
+
+			char[] values = new char[nodeCount];
+			int[] sources = new int[size];
+			int[] targets = new int[size];
+			for (int edge = 0; edge < size; edge++)
+			{
+				sources[edge] = indexByValue[parents[edge]];
+				targets[edge] = indexByValue[children[edge]];
+				values[sources[edge]] = parents[edge];
+				values[targets[edge]] = children[edge];
+			}
+
+			int[] edgeOffsets = new int[nodeCount + 1];
+			int[] inEdgeOffsets = new int[nodeCount + 1];
+			byte[] edgeBytes = encode(sources, targets, nodeCount, edgeOffsets);
+			byte[] inEdgeBytes = encode(targets, sources, nodeCount, inEdgeOffsets);
+
+			int maxDegree = 0;
+			int[] inDegrees = new int[nodeCount];
+			int[] outDegrees = new int[nodeCount];
+			for (int edge = 0; edge < size; edge++)
+			{
+				maxDegree = Math.max(maxDegree, ++outDegrees[sources[edge]]);
+				maxDegree = Math.max(maxDegree, ++inDegrees[targets[edge]]);
+			}
+
+			return new CompressedGraph(values, edgeOffsets, edgeBytes, inEdgeOffsets, inEdgeBytes, size, maxDegree);
+		}
+
+		/**
+		 * Encodes the edges grouped by {@code from} and sorted by {@code to},
+		 * keeping the order in which edges were added for equal pairs.
+		 */
+		private byte[] encode(int[] from, int[] to, int nodeCount, int[] offsets)
+		{
+			int[] order = sortStable(sortStable(identity(size), to, nodeCount), from, nodeCount);
+
+			int byteCount = 0;
+			int previousFrom = -1;
+			int previousTo = 0;
+			for (int edge : order)
+			{
+				if (from[edge] != previousFrom)
+				{
+					previousFrom = from[edge];
+					previousTo = 0;
+				}
+				byteCount += varintLength(to[edge] - previousTo) + varintLength(distances[edge] - 1);
+				previousTo = to[edge];
+			}
+
+			byte[] bytes = new byte[byteCount];
+			int position = 0;
+			int node = 0;
+			previousFrom = -1;
+			for (int edge : order)
+			{
+				if (from[edge] != previousFrom)
+				{
+					while (node <= from[edge])
+					{
+						offsets[node++] = position;
+					}
+					previousFrom = from[edge];
+					previousTo = 0;
+				}
+				position = writeVarint(bytes, position, to[edge] - previousTo);
+				position = writeVarint(bytes, position, distances[edge] - 1);
+				previousTo = to[edge];
+			}
+
+			while (node <= nodeCount)
+			{
+				offsets[node++] = position;
+			}
+
+			return bytes;
+		}
+
+		private static int[] identity(int length)
+		{
+			int[] order = new int[length];
+			for (int index = 0; index < length; index++)
+			{
+				order[index] = index;
+			}
+
+			return order;
+		}
+
+		/**
+		 * Counting sort of {@code order} by {@code keys}, which keeps equal
+		 * keys in their current order.
+		 */
+		private static int[] sortStable(int[] order, int[] keys, int keyCount)
+		{
+			int[] starts = new int[keyCount + 1];
+			for (int index : order)
+			{
+				starts[keys[index] + 1]++;
+			}
+
+			for (int key = 0; key < keyCount; key++)
+			{
+				starts[key + 1] += starts[key];
+			}
+
+			int[] sorted = new int[order.length];
+			for (int index : order)
+			{
+				sorted[starts[keys[index]]++] = index;
+			}
+
+			return sorted;
+		}
+
+		private static int varintLength(int value)
+		{
+			int length = 1;
+			while ((value >>>= 7) != 0)
+			{
+				length++;
+			}
+
+			return length;
+		}
+
+		private static int writeVarint(byte[] bytes, int position, int value)
+		{
+			while ((value & ~0x7F) != 0)
+			{
+				bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[position++] = (byte) value;
+			return position;
+		}
+	}
+}
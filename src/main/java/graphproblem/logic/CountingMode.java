@@ -0,0 +1,90 @@
+package graphproblem.logic;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+
+import java.math.BigInteger;
+
+import graphproblem.model.TripCount;
+
+/**
+ * Selects the arithmetic used while counting trips.
+ * 
+ * @author jojo
+ */
+public final class CountingMode
+{
+	private static final CountingMode SATURATING = new CountingMode(TripCount.Status.SATURATED, 0);
+	private static final CountingMode EXACT = new CountingMode(TripCount.Status.EXACT, 0);
+
+	private final TripCount.Status kind;
+	private final long modulus;
+
+	private CountingMode(TripCount.Status kind, long modulus)
+	{
+		this.kind = kind;
+		this.modulus = modulus;
+	}
+
+	/**
+	 * Counts with {@code long} arithmetic which saturates at
+	 * {@link Long#MAX_VALUE}. Counting stops as soon as the result is known to
+	 * be saturated.
+	 * 
+	 * @return the saturating {@link CountingMode}.
+	 */
+	public static CountingMode saturating()
+	{
+		return SATURATING;
+	}
+
+	/**
+	 * Counts with {@link BigInteger} arithmetic. The result is always exact,
+	 * but its size grows linearly with the number of stops on cyclic graphs.
+	 * 
+	 * @return the exact {@link CountingMode}.
+	 */
+	public static CountingMode exact()
+	{
+		return EXACT;
+	}
+
+	/**
+	 * Counts modulo {@code modulus}.
+	 * 
+	 * @param modulus
+	 *            the modulus.
+	 * @return a modular {@link CountingMode}.
+	 * @throws IllegalArgumentException
+	 *             if {@code modulus} is less than or equal to zero.
+	 */
+	public static CountingMode modulo(long modulus)
+	{
+		return new CountingMode(TripCount.Status.MODULAR, rejectIfLessThanOrEqualZero(modulus, "modulus"));
+	}
+
+	boolean isExact()
+	{
+		return kind == TripCount.Status.EXACT;
+	}
+
+	boolean isModular()
+	{
+		return kind == TripCount.Status.MODULAR;
+	}
+
+	boolean isSaturating()
+	{
+		return kind == TripCount.Status.SATURATED;
+	}
+
+	long getModulus()
+	{
+		return modulus;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CountingMode [kind=" + kind + ", modulus=" + modulus + "]";
+	}
+}
@@ -0,0 +1,449 @@
+package graphproblem.logic;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import graphproblem.model.Node;
+
+/**
+ * Computes single source shortest distances with the delta-stepping algorithm
+ * of Meyer and Sanders.
+ *
+ * <p>
+ * Nodes are kept in buckets of width {@code delta} by their tentative
+ * distance. The nodes of the smallest non empty bucket relax their light edges
+ * (distance at most {@code delta}) in parallel until the bucket stays empty,
+ * then all nodes removed from it relax their heavy edges once. Tentative
+ * distances live in a primitive array and are lowered with compare-and-set, so
+ * concurrent relaxations of the same node never lose an update.
+ * </p>
+ *
+ * <p>
+ * The graph is copied when the instance is created; edges added to the
+ * {@link GraphProcessor} afterwards are not seen. An instance can be used by
+ * several threads at the same time.
+ * </p>
+ *
+ * @author jojo
+ */
+public class DeltaSteppingShortestPaths
+{
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final int MIN_NODES_PER_TASK = 256;
+
+	private final IndexedGraph graph;
+	private final ForkJoinPool pool;
+	private final int delta;
+
+	private final int[] lightOffsets;
+	private final int[] lightTargets;
+	private final int[] lightDistances;
+	private final int[] heavyOffsets;
+	private final int[] heavyTargets;
+	private final int[] heavyDistances;
+
+	/**
+	 * Creates a new {@link DeltaSteppingShortestPaths} on the common
+	 * {@link ForkJoinPool} with an automatically chosen {@code delta}.
+	 *
+	 * @param graphProcessor
+	 *            the graph.
+	 * @throws IllegalArgumentException
+	 *             if {@code graphProcessor} is {@code null}.
+	 */
+	public DeltaSteppingShortestPaths(GraphProcessor graphProcessor)
+	{
+		this(graphProcessor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new {@link DeltaSteppingShortestPaths} with an automatically
+	 * chosen {@code delta}, see {@link #chooseDelta(IndexedGraph)}.
+	 *
+	 * @param graphProcessor
+	 *            the graph.
+	 * @param pool
+	 *            the {@link ForkJoinPool} relaxing the edges.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code graphProcessor} is {@code null}</li>
+	 *             <li>{@code pool} is {@code null}</li>
+	 *             </ul>
+	 */
+	public DeltaSteppingShortestPaths(GraphProcessor graphProcessor, ForkJoinPool pool)
+	{
+		this(rejectIfNull(graphProcessor, "graphProcessor").getIndexedGraph(), pool, 0);
+	}
+
+	/**
+	 * Creates a new {@link DeltaSteppingShortestPaths}.
+	 *
+	 * @param graphProcessor
+	 *            the graph.
+	 * @param pool
+	 *            the {@link ForkJoinPool} relaxing the edges.
+	 * @param delta
+	 *            the bucket width.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code graphProcessor} is {@code null}</li>
+	 *             <li>{@code pool} is {@code null}</li>
+	 *             <li>{@code delta} is less than or equal to zero</li>
+	 *             </ul>
+	 */
+	public DeltaSteppingShortestPaths(GraphProcessor graphProcessor, ForkJoinPool pool, int delta)
+	{
+		this(rejectIfNull(graphProcessor, "graphProcessor").getIndexedGraph(), pool,
+				rejectIfLessThanOrEqualZero(delta, "delta"));
+	}
+
+	private DeltaSteppingShortestPaths(IndexedGraph graph, ForkJoinPool pool, int delta)
+	{
+		this.graph = graph;
+		this.pool = rejectIfNull(pool, "pool");
+		this.delta = delta > 0 ? delta : chooseDelta(graph);
+
+		int nodeCount = graph.getNodeCount();
+		this.lightOffsets = new int[nodeCount + 1];
+		this.heavyOffsets = new int[nodeCount + 1];
+		for (int node = 0; node < nodeCount; node++)
+		{
+			int light = 0;
+			for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++)
+			{
+				light += graph.getEdgeDistance(edge) <= this.delta ? 1 : 0;
+			}
+			lightOffsets[node + 1] = lightOffsets[node] + light;
+			heavyOffsets[node + 1] = heavyOffsets[node] + graph.getEdgeEnd(node) - graph.getEdgeStart(node) - light;
+		}
+
+		this.lightTargets = new int[lightOffsets[nodeCount]];
+		this.lightDistances = new int[lightOffsets[nodeCount]];
+		this.heavyTargets = new int[heavyOffsets[nodeCount]];
+		this.heavyDistances = new int[heavyOffsets[nodeCount]];
+		for (int node = 0; node < nodeCount; node++)
+		{
+			int light = lightOffsets[node];
+			int heavy = heavyOffsets[node];
+			for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++)
+			{
+				if (graph.getEdgeDistance(edge) <= this.delta)
+				{
+					lightTargets[light] = graph.getEdgeTarget(edge);
+					lightDistances[light++] = graph.getEdgeDistance(edge);
+				}
+				else
+				{
+					heavyTargets[heavy] = graph.getEdgeTarget(edge);
+					heavyDistances[heavy++] = graph.getEdgeDistance(edge);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Chooses the bucket width as the maximum edge distance divided by the
+	 * average out degree, which Meyer and Sanders show to be work efficient
+	 * for random edge distances, but never smaller than the minimum edge
+	 * distance. A smaller width only adds empty buckets, since no edge can
+	 * then stay inside a bucket.
+	 */
+	static int chooseDelta(IndexedGraph graph)
+	{
+		if (graph.getEdgeCount() == 0)
+		{
+			return 1;
+		}
+
+		int minDistance = Integer.MAX_VALUE;
+		int maxDistance = 0;
+		for (int edge = 0; edge < graph.getEdgeCount(); edge++)
+		{
+			minDistance = Math.min(minDistance, graph.getEdgeDistance(edge));
+			maxDistance = Math.max(maxDistance, graph.getEdgeDistance(edge));
+		}
+
+		double averageDegree = (double) graph.getEdgeCount() / graph.getNodeCount();
+		return Math.max(minDistance, (int) Math.ceil(maxDistance / Math.max(1.0, averageDegree)));
+	}
+
+	/**
+	 * @return the bucket width.
+	 */
+	public int getDelta()
+	{
+		return delta;
+	}
+
+	/**
+	 * Returns the shortest distance from {@code source} to every node it can
+	 * reach, including {@code source} itself with a distance of zero.
+	 *
+	 * @param source
+	 *            the starting node.
+	 * @return the shortest distance by node. Nodes which cannot be reached are
+	 *         not contained.
+	 * @throws IllegalArgumentException
+	 *             if {@code source} is {@code null}.
+	 */
+	public Map<Node<Character>, Integer> findShortestDistances(Node<Character> source)
+	{
+		rejectIfNull(source, "source");
+
+		Map<Node<Character>, Integer> distanceByNode = new HashMap<Node<Character>, Integer>();
+		int sourceIndex = graph.indexOf(source);
+		if (sourceIndex < 0)
+		{
+			distanceByNode.put(source, 0);
+			return distanceByNode;
+		}
+
+		AtomicIntegerArray distances = findShortestDistances(sourceIndex);
+		for (int node = 0; node < graph.getNodeCount(); node++)
+		{
+			if (distances.get(node) != UNREACHABLE)
+			{
+				distanceByNode.put(graph.getNode(node), distances.get(node));
+			}
+		}
+
+		return distanceByNode;
+	}
+
+	AtomicIntegerArray findShortestDistances(int source)
+	{
+		int nodeCount = graph.getNodeCount();
+		AtomicIntegerArray distances = new AtomicIntegerArray(nodeCount);
+		for (int node = 0; node < nodeCount; node++)
+		{
+			distances.set(node, UNREACHABLE);
+		}
+		distances.set(source, 0);
+
+		TreeMap<Integer, IntList> buckets = new TreeMap<Integer, IntList>();
+		buckets.put(0, IntList.of(source));
+
+		// the distance each node's light edges were last relaxed with, so
+		// stale or duplicate bucket entries are skipped
+		int[] relaxedDistances = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++)
+		{
+			relaxedDistances[node] = UNREACHABLE;
+		}
+		boolean[] isSettled = new boolean[nodeCount];
+
+		while (!buckets.isEmpty())
+		{
+			int bucket = buckets.firstKey();
+			IntList settled = new IntList();
+
+			while (buckets.containsKey(bucket))
+			{
+				IntList candidates = buckets.remove(bucket);
+				IntList frontier = new IntList();
+				for (int index = 0; index < candidates.size(); index++)
+				{
+					int node = candidates.get(index);
+					int distance = distances.get(node);
+					if (distance / delta != bucket || distance >= relaxedDistances[node])
+					{
+						continue;
+					}
+
+					relaxedDistances[node] = distance;
+					frontier.add(node);
+					if (!isSettled[node])
+					{
+						isSettled[node] = true;
+						settled.add(node);
+					}
+				}
+
+				addToBuckets(buckets, relax(frontier, lightOffsets, lightTargets, lightDistances, distances),
+						distances);
+			}
+
+			// distances in the bucket are final now, so every heavy edge is
+			// relaxed exactly once
+			addToBuckets(buckets, relax(settled, heavyOffsets, heavyTargets, heavyDistances, distances), distances);
+		}
+
+		return distances;
+	}
+
+	private void addToBuckets(TreeMap<Integer, IntList> buckets, IntList improvedNodes, AtomicIntegerArray distances)
+	{
+		for (int index = 0; index < improvedNodes.size(); index++)
+		{
+			int node = improvedNodes.get(index);
+			int bucket = distances.get(node) / delta;
+			IntList nodes = buckets.get(bucket);
+			if (nodes == null)
+			{
+				nodes = new IntList();
+				buckets.put(bucket, nodes);
+			}
+			nodes.add(node);
+		}
+	}
+
+	/**
+	 * Relaxes the given edges of all {@code nodes}, splitting the work across
+	 * the pool if there are enough nodes.
+	 *
+	 * @return the nodes whose distance was lowered, possibly more than once.
+	 */
+	private IntList relax(final IntList nodes, final int[] offsets, final int[] targets, final int[] edgeDistances,
+			final AtomicIntegerArray distances)
+	{
+		int taskCount = Math.min(pool.getParallelism(), nodes.size() / MIN_NODES_PER_TASK);
+		if (taskCount <= 1)
+		{
+			return relax(nodes, 0, nodes.size(), offsets, targets, edgeDistances, distances);
+		}
+
+		List<Callable<IntList>> tasks = new ArrayList<Callable<IntList>>(taskCount);
+		for (int task = 0; task < taskCount; task++)
+		{
+			final int from = (int) ((long) nodes.size() * task / taskCount);
+			final int to = (int) ((long) nodes.size() * (task + 1) / taskCount);
+			tasks.add(new Callable<IntList>()
+			{
+				@Override
+				public IntList call()
+				{
+					return relax(nodes, from, to, offsets, targets, edgeDistances, distances);
+				}
+			});
+		}
+
+		IntList improvedNodes = new IntList();
+		for (Future<IntList> future : pool.invokeAll(tasks))
+		{
+			improvedNodes.addAll(await(future));
+		}
+
+		return improvedNodes;
+	}
+
+	private static IntList relax(IntList nodes, int from, int to, int[] offsets, int[] targets,
+			int[] edgeDistances, AtomicIntegerArray distances)
+	{
+		IntList improvedNodes = new IntList();
+		for (int index = from; index < to; index++)
+		{
+			int node = nodes.get(index);
+			long nodeDistance = distances.get(node);
+			for (int edge = offsets[node]; edge < offsets[node + 1]; edge++)
+			{
+				long distance = nodeDistance + edgeDistances[edge];
+				if (distance < UNREACHABLE && lowerDistance(distances, targets[edge], (int) distance))
+				{
+					improvedNodes.add(targets[edge]);
+				}
+			}
+		}
+
+		return improvedNodes;
+	}
+
+	/**
+	 * Atomically replaces the distance of {@code node} with {@code distance}
+	 * if that is smaller.
+	 *
+	 * @return {@code true} if the distance was lowered.
+	 */
+	private static boolean lowerDistance(AtomicIntegerArray distances, int node, int distance)
+	{
+		int current = distances.get(node);
+		while (distance < current)
+		{
+			if (distances.compareAndSet(node, current, distance))
+			{
+				return true;
+			}
+			current = distances.get(node);
+		}
+
+		return false;
+	}
+
+	private static <T> T await(Future<T> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while relaxing edges.", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("relaxing edges failed.", e.getCause());
+		}
+	}
+
+	/**
+	 * Growable list of primitive {@code int} values.
+	 */
+	private static final class IntList
+	{
+		private int[] values = new int[8];
+		private int size;
+
+		private static IntList of(int value)
+		{
+			IntList list = new IntList();
+			list.add(value);
+			return list;
+		}
+
+		private void add(int value)
+		{
+			if (size == values.length)
+			{
+				int[] grown = new int[size * 2];
+				System.arraycopy(values, 0, grown, 0, size);
+				values = grown;
+			}
+			values[size++] = value;
+		}
+
+		private void addAll(IntList other)
+		{
+			for (int index = 0; index < other.size; index++)
+			{
+				add(other.values[index]);
+			}
+		}
+
+		private int get(int index)
+		{
+			return values[index];
+		}
+
+		private int size()
+		{
+			return size;
+		}
+	}
+}
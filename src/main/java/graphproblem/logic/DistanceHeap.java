@@ -0,0 +1,80 @@
+package graphproblem.logic;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of non negative distances paired with node indexes, packed
+ * into one {@code long} each so that no object is allocated per entry.
+ *
+ * @author jojo
+ */
+final class DistanceHeap
+{
+	private long[] entries = new long[16];
+	private int size;
+
+	/**
+	 * Adds {@code node} with the given {@code distance}, which must not be
+	 * negative.
+	 */
+	void add(int distance, int node)
+	{
+		if (size == entries.length)
+		{
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+
+		long entry = ((long) distance << 32) | node;
+		int position = size++;
+		while (position > 0 && entries[(position - 1) / 2] > entry)
+		{
+			entries[position] = entries[(position - 1) / 2];
+			position = (position - 1) / 2;
+		}
+		entries[position] = entry;
+	}
+
+	/**
+	 * Removes the entry with the smallest distance.
+	 *
+	 * @return the packed entry, see {@link #getDistance(long)} and
+	 *         {@link #getNode(long)}.
+	 */
+	long remove()
+	{
+		long first = entries[0];
+		long last = entries[--size];
+		int position = 0;
+		while (2 * position + 1 < size)
+		{
+			int child = 2 * position + 1;
+			if (child + 1 < size && entries[child + 1] < entries[child])
+			{
+				child++;
+			}
+			if (entries[child] >= last)
+			{
+				break;
+			}
+			entries[position] = entries[child];
+			position = child;
+		}
+		entries[position] = last;
+		return first;
+	}
+
+	boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	static int getDistance(long entry)
+	{
+		return (int) (entry >>> 32);
+	}
+
+	static int getNode(long entry)
+	{
+		return (int) entry;
+	}
+}
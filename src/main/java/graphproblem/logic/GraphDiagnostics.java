@@ -0,0 +1,245 @@
+package graphproblem.logic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import graphproblem.model.Node;
+import graphproblem.model.QueryResult;
+import graphproblem.model.QueryStats;
+import graphproblem.model.TripCount;
+
+/**
+ * Runs the queries of a {@link GraphProcessor} and returns their
+ * {@link QueryStats} together with the result. Obtained through
+ * {@link GraphProcessor#withDiagnostics(boolean)}.
+ * 
+ * <p>
+ * Allocated bytes are measured with the {@code com.sun.management} extension
+ * of {@link ThreadMXBean} and reported as -1 on JVMs without it. If JFR export
+ * is switched on, every query also commits a {@code graphproblem.Query} event,
+ * which is recorded whenever a flight recording with that event enabled is
+ * running.
+ * </p>
+ * 
+ * @author jojo
+ */
+public class GraphDiagnostics
+{
+	private final GraphProcessor graphProcessor;
+	private final boolean exportJfrEvents;
+
+	GraphDiagnostics(GraphProcessor graphProcessor, boolean exportJfrEvents)
+	{
+		this.graphProcessor = graphProcessor;
+		this.exportJfrEvents = exportJfrEvents;
+	}
+
+	/**
+	 * See {@link GraphProcessor#findDistanceWithExactNodeStop(List)}.
+	 * 
+	 * @param nodes
+	 *            the {@code List} of nodes.
+	 * @return the distance of the route, or -1 if no route is possible,
+	 *         together with the {@link QueryStats}.
+	 */
+	public QueryResult<Integer> findDistanceWithExactNodeStop(List<Node<Character>> nodes)
+	{
+		Measurement measurement = new Measurement("findDistanceWithExactNodeStop");
+		int distance = graphProcessor.findDistanceWithExactNodeStop(nodes, measurement.probe);
+		return measurement.finish(distance);
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithExactStopCount(int, Node, Node, CountingMode)}.
+	 * 
+	 * @param stopCount
+	 *            exact number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount} together with the {@link QueryStats}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public QueryResult<TripCount> countTripsWithExactStopCount(int stopCount, Node<Character> node1,
+			Node<Character> node2, CountingMode mode)
+	{
+		Measurement measurement = new Measurement("countTripsWithExactStopCount");
+		TripCount tripCount = graphProcessor.countTripsWithExactStopCount(stopCount, node1, node2, mode,
+				measurement.probe);
+		return measurement.finish(tripCount);
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithMaxStopCountLimit(int, Node, Node, CountingMode)}.
+	 * 
+	 * @param stopCount
+	 *            maximum number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount} together with the {@link QueryStats}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public QueryResult<TripCount> countTripsWithMaxStopCountLimit(int stopCount, Node<Character> node1,
+			Node<Character> node2, CountingMode mode)
+	{
+		Measurement measurement = new Measurement("countTripsWithMaxStopCountLimit");
+		TripCount tripCount = graphProcessor.countTripsWithMaxStopCountLimit(stopCount, node1, node2, mode,
+				measurement.probe);
+		return measurement.finish(tripCount);
+	}
+
+	/**
+	 * See
+	 * {@link GraphProcessor#countTripsWithMaxDistanceLimit(int, Node, Node, CountingMode)}.
+	 * 
+	 * @param maxDistance
+	 *            the given maximum distance limit.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the destination node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount} together with the {@link QueryStats}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code maxDistance} is less than or equals to zero</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public QueryResult<TripCount> countTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1,
+			Node<Character> node2, CountingMode mode)
+	{
+		Measurement measurement = new Measurement("countTripsWithMaxDistanceLimit");
+		TripCount tripCount = graphProcessor.countTripsWithMaxDistanceLimit(maxDistance, node1, node2, mode,
+				measurement.probe);
+		return measurement.finish(tripCount);
+	}
+
+	/**
+	 * See {@link GraphProcessor#findShortestPathBasedOnDistance(Node, Node)}.
+	 * 
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @return the shortest distance, or -1 if the nodes are disconnected,
+	 *         together with the {@link QueryStats}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             </ul>
+	 */
+	public QueryResult<Integer> findShortestPathBasedOnDistance(Node<Character> node1, Node<Character> node2)
+	{
+		Measurement measurement = new Measurement("findShortestPathBasedOnDistance");
+		int shortestDistance = graphProcessor.findShortestPathBasedOnDistance(node1, node2, measurement.probe);
+		return measurement.finish(shortestDistance);
+	}
+
+	/**
+	 * @return the number of bytes allocated by the current thread so far, or
+	 *         -1 if the JVM cannot measure it.
+	 */
+	private static long getAllocatedBytes()
+	{
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (allocationMXBean.isThreadAllocatedMemorySupported()
+					&& allocationMXBean.isThreadAllocatedMemoryEnabled())
+			{
+				return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+
+		return -1;
+	}
+
+	private final class Measurement
+	{
+		private final String query;
+		private final RecordingSearchProbe probe = new RecordingSearchProbe();
+		private final QueryEvent event;
+		private final long startBytes;
+		private final long startNanos;
+
+		private Measurement(String query)
+		{
+			this.query = query;
+			this.event = exportJfrEvents ? new QueryEvent() : null;
+			if (event != null)
+			{
+				event.begin();
+			}
+			this.startBytes = getAllocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+
+		private <T> QueryResult<T> finish(T value)
+		{
+			long wallTimeNanos = System.nanoTime() - startNanos;
+			long endBytes = getAllocatedBytes();
+			long allocatedBytes = (startBytes < 0 || endBytes < 0) ? -1 : endBytes - startBytes;
+			QueryStats stats = probe.toQueryStats(query, allocatedBytes, wallTimeNanos);
+
+			if (event != null)
+			{
+				event.end();
+				if (event.shouldCommit())
+				{
+					event.query = query;
+					event.nodesVisited = stats.getNodesVisited();
+					event.edgesScanned = stats.getEdgesScanned();
+					event.heapPushes = stats.getHeapPushes();
+					event.heapPops = stats.getHeapPops();
+					event.maxDepth = stats.getMaxDepth();
+					event.maxQueueSize = stats.getMaxQueueSize();
+					event.maxDistance = stats.getMaxDistance();
+					event.allocatedBytes = stats.getAllocatedBytes();
+					event.commit();
+				}
+			}
+
+			return new QueryResult<T>(value, stats);
+		}
+	}
+}
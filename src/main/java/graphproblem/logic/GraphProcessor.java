@@ -4,15 +4,14 @@ import static graphproblem.util.ArgumentChecker.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.Set;
 
 import graphproblem.model.Edge;
 import graphproblem.model.Node;
+import graphproblem.model.TripCount;
 
 /**
  * Implementation class.
@@ -22,6 +21,7 @@ import graphproblem.model.Node;
 public class GraphProcessor
 {
 	private Map<Node<Character>, List<Edge<Character>>> adjacencyList = new HashMap<Node<Character>, List<Edge<Character>>>();
+	private IndexedGraph indexedGraph;
 
 	/**
 	 * Adds an edge to the graph.
@@ -48,6 +48,7 @@ public class GraphProcessor
 		}
 
 		adjacencyList.get(node).add(edge);
+		indexedGraph = null;
 	}
 
 	/**
@@ -68,10 +69,21 @@ public class GraphProcessor
 	 *         possible.
 	 */
 	public int findDistanceWithExactNodeStop(List<Node<Character>> nodes)
+	{
+		int distance = findDistance(nodes);
+
+		System.out.println(distance < 0 ? "NO SUCH ROUTE" : String.valueOf(distance));
+		return distance;
+	}
+
+	/**
+	 * {@link #findDistanceWithExactNodeStop(List)} without printing the
+	 * result.
+	 */
+	int findDistance(List<Node<Character>> nodes)
 	{
 		if (nodes == null || nodes.size() < 2 || doesNodesHasNullEntry(nodes))
 		{
-			System.out.println("NO SUCH ROUTE");
 			return -1;
 		}
 
@@ -84,31 +96,76 @@ public class GraphProcessor
 		{
 			nextNode = nodes.get(count++);
 			List<Edge<Character>> edges = adjacencyList.get(currentNode);
+			if (edges == null)
+			{
+				return -1;
+			}
+
+			for (Edge<Character> singleEdge : edges)
+			{
+				if (nextNode.equals(singleEdge.getNode()))
+				{
+					currentNode = nextNode;
+					distance += singleEdge.getDistance();
+					break;
+				}
+			}
+
+			if (currentNode != nextNode)
+			{
+				return -1;
+			}
+		}
+
+		return distance;
+	}
+
+	/**
+	 * {@link #findDistanceWithExactNodeStop(List)} which reports its events to
+	 * {@code probe}, for {@link GraphDiagnostics} only.
+	 */
+	int findDistanceWithExactNodeStop(List<Node<Character>> nodes, SearchProbe probe)
+	{
+		if (nodes == null || nodes.size() < 2 || doesNodesHasNullEntry(nodes))
+		{
+			return -1;
+		}
+
+		int count = 1;
+		int distance = 0;
+		Node<Character> nextNode = null;
+		Node<Character> currentNode = nodes.get(0);
+
+		while (count < nodes.size())
+		{
+			nextNode = nodes.get(count++);
+			List<Edge<Character>> edges = adjacencyList.get(currentNode);
+			probe.nodeVisited();
+			probe.depthReached(count - 1);
 
 			if (edges == null)
 			{
-				System.out.println("NO SUCH ROUTE");
 				return -1;
 			}
 
 			for (Edge<Character> singleEdge : edges)
 			{
+				probe.edgeScanned();
 				if (nextNode.equals(singleEdge.getNode()))
 				{
 					currentNode = nextNode;
 					distance += singleEdge.getDistance();
+					probe.distanceReached(distance);
 					break;
 				}
 			}
 
 			if (currentNode != nextNode)
 			{
-				System.out.println("NO SUCH ROUTE");
 				return -1;
 			}
 		}
 
-		System.out.println(distance);
 		return distance;
 	}
 
@@ -142,17 +199,73 @@ public class GraphProcessor
 	 *             <li>{@code node1} is {@code null}</li>
 	 *             <li>{@code node2} is {@code null}</li>
 	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
 	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
 	 */
 	public int findTripsWithExactStopCount(int stopCount, Node<Character> node1, Node<Character> node2)
 	{
-		int tripCount = findTripCountHelper(rejectIfNull(node1, "node1"), rejectIfNull(node2, "node2"), 0,
-				rejectIfLessThanOrEqualZero(stopCount, "stopCount"), TripCalculationMode.EXACT_STOPS);
+		int tripCount = toIntExact(countTripsWithExactStopCount(stopCount, node1, node2, CountingMode.saturating()));
 
 		System.out.println(tripCount);
 		return tripCount;
 	}
 
+	/**
+	 * Returns number of trips possible between {@code node1} and {@code node2}
+	 * with number of stops equal to {@code stopCount}, counted with the given
+	 * {@link CountingMode}.
+	 * 
+	 * @param stopCount
+	 *            exact number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithExactStopCount(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
+	{
+		return countTripsWithExactStopCount(stopCount, node1, node2, mode, null);
+	}
+
+	/**
+	 * {@link #countTripsWithExactStopCount(int, Node, Node, CountingMode)} which reports its layers to
+	 * {@code probe}, or runs without instrumentation if {@code probe} is
+	 * {@code null}.
+	 */
+	TripCount countTripsWithExactStopCount(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode, SearchProbe probe)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(stopCount, "stopCount");
+		rejectIfNull(mode, "mode");
+
+		IndexedGraph graph = getIndexedGraph();
+		return new TripCounter(graph, probe).countByStops(graph.indexOf(node1), graph.indexOf(node2), stopCount, true,
+				mode);
+	}
+
 	/**
 	 * Returns maximum number of trips possible between {@code node1} and
 	 * {@code node2} which has number of stops less than or equal to
@@ -171,55 +284,71 @@ public class GraphProcessor
 	 *             <li>{@code node1} is {@code null}</li>
 	 *             <li>{@code node2} is {@code null}</li>
 	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
 	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
 	 */
 	public int findTripWithMaxStopCountLimit(int stopCount, Node<Character> node1, Node<Character> node2)
 	{
-		int tripCount = findTripCountHelper(rejectIfNull(node1, "node1"), rejectIfNull(node2, "node2"), 0,
-				rejectIfLessThanOrEqualZero(stopCount, "stopCount"), TripCalculationMode.MAXIMUM_STOPS);
+		int tripCount = toIntExact(countTripsWithMaxStopCountLimit(stopCount, node1, node2, CountingMode.saturating()));
 
 		System.out.println(tripCount);
 		return tripCount;
 	}
 
-	private int findTripCountHelper(Node<Character> node1, Node<Character> node2, int count, int refCount,
-			TripCalculationMode mode)
+	/**
+	 * Returns number of trips possible between {@code node1} and {@code node2}
+	 * which has number of stops less than or equal to {@code stopCount},
+	 * counted with the given {@link CountingMode}.
+	 * 
+	 * @param stopCount
+	 *            maximum number of stop counts in each trip.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code stopCount} is less than or equals to zero</li>
+	 *             <li>{@code stopCount} is too large to be counted in about
+	 *             10^10 steps, which only happens for exact counts or with
+	 *             more than 1024 nodes on trips from {@code node1} to
+	 *             {@code node2}</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithMaxStopCountLimit(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
 	{
-		if (count > refCount)
-		{
-			return 0;
-		}
-
-		int trip = 0;
-		if (count > 0 && isCountValid(count, refCount, mode) && node1.equals(node2))
-		{
-			if (mode == TripCalculationMode.MAXIMUM_STOPS)
-			{
-				trip += 1;
-			}
-			else
-			{
-				return 1;
-			}
-		}
-
-		List<Edge<Character>> edges = adjacencyList.get(node1);
-		if (edges == null)
-		{
-			return trip;
-		}
-
-		for (Edge<Character> singleEdge : edges)
-		{
-			trip += findTripCountHelper(singleEdge.getNode(), node2, count + 1, refCount, mode);
-		}
-
-		return trip;
+		return countTripsWithMaxStopCountLimit(stopCount, node1, node2, mode, null);
 	}
 
-	private boolean isCountValid(int count, int refCount, TripCalculationMode mode)
+	/**
+	 * {@link #countTripsWithMaxStopCountLimit(int, Node, Node, CountingMode)} which reports its layers to
+	 * {@code probe}, or runs without instrumentation if {@code probe} is
+	 * {@code null}.
+	 */
+	TripCount countTripsWithMaxStopCountLimit(int stopCount, Node<Character> node1, Node<Character> node2,
+			CountingMode mode, SearchProbe probe)
 	{
-		return (mode == TripCalculationMode.EXACT_STOPS) ? count == refCount : count <= refCount;
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(stopCount, "stopCount");
+		rejectIfNull(mode, "mode");
+
+		IndexedGraph graph = getIndexedGraph();
+		return new TripCounter(graph, probe).countByStops(graph.indexOf(node1), graph.indexOf(node2), stopCount, false,
+				mode);
 	}
 
 	/**
@@ -240,42 +369,84 @@ public class GraphProcessor
 	 *             <li>{@code node2} is {@code null}</li>
 	 *             <li>{@code maxDistance} is less than or equals to zero</li>
 	 *             </ul>
+	 * @throws ArithmeticException
+	 *             if the number of trips does not fit into an {@code int}.
 	 */
 	public int findTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1, Node<Character> node2)
 	{
-		int trips = findTripsWithDistanceLimitHelper(rejectIfNull(node1, "node1"), rejectIfNull(node2, "node2"), 0,
-				rejectIfLessThanOrEqualZero(maxDistance, "maxDistance"));
+		int trips = toIntExact(countTripsWithMaxDistanceLimit(maxDistance, node1, node2, CountingMode.saturating()));
 		System.out.println(trips);
 		return trips;
 	}
 
-	private int findTripsWithDistanceLimitHelper(Node<Character> node1, Node<Character> node2, int distance,
-			int refDistance)
+	/**
+	 * Returns number of trips which are shorter than the given maximum distance
+	 * limit, counted with the given {@link CountingMode}.
+	 * 
+	 * @param maxDistance
+	 *            the given maximum distance limit.
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the destination node.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code maxDistance} is less than or equals to zero</li>
+	 *             <li>{@code mode} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount countTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1, Node<Character> node2,
+			CountingMode mode)
 	{
-		if (distance > refDistance)
-		{
-			return 0;
-		}
+		return countTripsWithMaxDistanceLimit(maxDistance, node1, node2, mode, null);
+	}
 
-		int trips = 0;
-		if (distance > 0 && distance < refDistance && node1.equals(node2))
-		{
-			trips += 1;
-		}
+	/**
+	 * {@link #countTripsWithMaxDistanceLimit(int, Node, Node, CountingMode)} which reports its layers to
+	 * {@code probe}, or runs without instrumentation if {@code probe} is
+	 * {@code null}.
+	 */
+	TripCount countTripsWithMaxDistanceLimit(int maxDistance, Node<Character> node1, Node<Character> node2,
+			CountingMode mode, SearchProbe probe)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		rejectIfLessThanOrEqualZero(maxDistance, "maxDistance");
+		rejectIfNull(mode, "mode");
 
-		List<Edge<Character>> edges = adjacencyList.get(node1);
-		if (edges == null)
+		IndexedGraph graph = getIndexedGraph();
+		return new TripCounter(graph, probe).countByDistance(graph.indexOf(node1), graph.indexOf(node2), maxDistance,
+				mode);
+	}
+
+	static int toIntExact(TripCount tripCount)
+	{
+		if (tripCount.isSaturated() || tripCount.getValue().bitLength() >= Integer.SIZE)
 		{
-			return trips;
+			throw new ArithmeticException("number of trips exceeds " + Integer.MAX_VALUE + ".");
 		}
 
-		for (Edge<Character> singleEdge : edges)
+		return tripCount.getValue().intValue();
+	}
+
+	/**
+	 * @return the {@link IndexedGraph} of the current edges, which is rebuilt
+	 *         only after edges have been added.
+	 */
+	IndexedGraph getIndexedGraph()
+	{
+		if (indexedGraph == null)
 		{
-			trips += findTripsWithDistanceLimitHelper(singleEdge.getNode(), node2, distance + singleEdge.getDistance(),
-					refDistance);
+			indexedGraph = IndexedGraph.of(adjacencyList);
 		}
 
-		return trips;
+		return indexedGraph;
 	}
 
 	/**
@@ -296,63 +467,199 @@ public class GraphProcessor
 	 *             </ul>
 	 */
 	public int findShortestPathBasedOnDistance(Node<Character> node1, Node<Character> node2)
+	{
+		int shortestDistance = findShortestDistance(node1, node2);
+
+		System.out.println(shortestDistance < 0 ? "NODES ARE DISCONNECTED" : String.valueOf(shortestDistance));
+		return shortestDistance;
+	}
+
+	/**
+	 * {@link #findShortestPathBasedOnDistance(Node, Node)} without printing
+	 * the result.
+	 */
+	int findShortestDistance(Node<Character> node1, Node<Character> node2)
 	{
 		rejectIfNull(node1, "node1");
 		rejectIfNull(node2, "node2");
 
-		Queue<Node<Character>> queue = new LinkedList<Node<Character>>();
-		queue.add(node1);
+		Map<Node<Character>, Integer> shortestDistanceByNode = new HashMap<Node<Character>, Integer>();
+		Queue<NodeDistance> queue = new PriorityQueue<NodeDistance>();
+
+		// the trip has to contain at least one edge, so the search starts from
+		// the neighbours of node1 rather than from node1 itself.
+		relaxEdges(node1, 0, shortestDistanceByNode, queue);
+
+		while (!queue.isEmpty())
+		{
+			NodeDistance current = queue.remove();
+			if (current.distance > shortestDistanceByNode.get(current.node))
+			{
+				continue;
+			}
+
+			if (current.node.equals(node2))
+			{
+				break;
+			}
+
+			relaxEdges(current.node, current.distance, shortestDistanceByNode, queue);
+		}
+
+		Integer shortestDistance = shortestDistanceByNode.get(node2);
+		return shortestDistance == null ? -1 : shortestDistance;
+	}
+
+	private void relaxEdges(Node<Character> parentNode, int parentDistance,
+			Map<Node<Character>, Integer> shortestDistanceByNode, Queue<NodeDistance> queue)
+	{
+		List<Edge<Character>> edges = adjacencyList.get(parentNode);
+		if (edges == null)
+		{
+			return;
+		}
+
+		for (Edge<Character> singleEdge : edges)
+		{
+			Node<Character> currentNode = singleEdge.getNode();
+			int currentCumulativeWeight = parentDistance + singleEdge.getDistance();
+			Integer prevCumulativeWeight = shortestDistanceByNode.get(currentNode);
+			if (prevCumulativeWeight == null || currentCumulativeWeight < prevCumulativeWeight)
+			{
+				shortestDistanceByNode.put(currentNode, currentCumulativeWeight);
+				queue.add(new NodeDistance(currentNode, currentCumulativeWeight));
+			}
+		}
+	}
 
-		Set<Node<Character>> visitedNodes = new HashSet<Node<Character>>();
+	/**
+	 * {@link #findShortestDistance(Node, Node)} which reports its events to
+	 * {@code probe}, for {@link GraphDiagnostics} only.
+	 */
+	int findShortestPathBasedOnDistance(Node<Character> node1, Node<Character> node2, SearchProbe probe)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
 
-		Node<Character> parentNode = null;
 		Map<Node<Character>, Integer> shortestDistanceByNode = new HashMap<Node<Character>, Integer>();
+		Queue<NodeDistance> queue = new PriorityQueue<NodeDistance>();
+
+		// the trip has to contain at least one edge, so the search starts from
+		// the neighbours of node1 rather than from node1 itself.
+		relaxEdges(node1, 0, shortestDistanceByNode, queue, probe);
 
 		while (!queue.isEmpty())
 		{
-			parentNode = queue.remove();
+			NodeDistance current = queue.remove();
+			probe.heapPopped();
+			if (current.distance > shortestDistanceByNode.get(current.node))
+			{
+				continue;
+			}
 
-			List<Edge<Character>> edges = adjacencyList.get(parentNode);
+			probe.distanceReached(current.distance);
 
-			if (edges == null)
+			if (current.node.equals(node2))
 			{
-				continue;
+				break;
 			}
 
-			for (Edge<Character> singleEdge : edges)
+			relaxEdges(current.node, current.distance, shortestDistanceByNode, queue, probe);
+		}
+
+		Integer shortestDistance = shortestDistanceByNode.get(node2);
+		return shortestDistance == null ? -1 : shortestDistance;
+	}
+
+	private void relaxEdges(Node<Character> parentNode, int parentDistance,
+			Map<Node<Character>, Integer> shortestDistanceByNode, Queue<NodeDistance> queue, SearchProbe probe)
+	{
+		probe.nodeVisited();
+		List<Edge<Character>> edges = adjacencyList.get(parentNode);
+		if (edges == null)
+		{
+			return;
+		}
+
+		for (Edge<Character> singleEdge : edges)
+		{
+			probe.edgeScanned();
+			Node<Character> currentNode = singleEdge.getNode();
+			int currentCumulativeWeight = parentDistance + singleEdge.getDistance();
+			Integer prevCumulativeWeight = shortestDistanceByNode.get(currentNode);
+			if (prevCumulativeWeight == null || currentCumulativeWeight < prevCumulativeWeight)
 			{
-				Node<Character> currentNode = singleEdge.getNode();
-				if (visitedNodes.add(currentNode))
-				{
-					queue.add(currentNode);
-				}
+				shortestDistanceByNode.put(currentNode, currentCumulativeWeight);
+				queue.add(new NodeDistance(currentNode, currentCumulativeWeight));
+				probe.heapPushed();
+			}
+		}
+	}
 
-				int currentCumulativeWeight = (shortestDistanceByNode.get(parentNode) == null ? 0
-						: shortestDistanceByNode.get(parentNode)) + singleEdge.getDistance();
-				if (!shortestDistanceByNode.containsKey(currentNode))
-				{
-					shortestDistanceByNode.put(currentNode, currentCumulativeWeight);
-				}
-				else
-				{
-					int prevCumulativeWeight = shortestDistanceByNode.get(currentNode);
-					shortestDistanceByNode.put(currentNode, Math.min(currentCumulativeWeight, prevCumulativeWeight));
-				}
+	/**
+	 * Returns a view of this graph whose queries also return their
+	 * {@link graphproblem.model.QueryStats}.
+	 * 
+	 * @param exportJfrEvents
+	 *            whether every query also commits a Java Flight Recorder event.
+	 * @return the {@link GraphDiagnostics}.
+	 */
+	public GraphDiagnostics withDiagnostics(boolean exportJfrEvents)
+	{
+		return new GraphDiagnostics(this, exportJfrEvents);
+	}
+
+	/**
+	 * Encodes the current edges into a read-only {@link CompressedGraph},
+	 * which answers the same queries with a fraction of the memory.
+	 * 
+	 * @return the {@link CompressedGraph}.
+	 */
+	public CompressedGraph compress()
+	{
+		CompressedGraph.Builder builder = new CompressedGraph.Builder();
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : adjacencyList.entrySet())
+		{
+			for (Edge<Character> singleEdge : entry.getValue())
+			{
+				builder.addEdge(entry.getKey(), singleEdge);
 			}
 		}
 
-		if (shortestDistanceByNode.get(node2) == null)
+		return builder.build();
+	}
+
+	/**
+	 * Returns a copy of the edges of the graph grouped by their parent node.
+	 * 
+	 * @return the adjacency list, which cannot be {@code null}.
+	 */
+	public Map<Node<Character>, List<Edge<Character>>> getAdjacencyList()
+	{
+		Map<Node<Character>, List<Edge<Character>>> copy = new HashMap<Node<Character>, List<Edge<Character>>>();
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : adjacencyList.entrySet())
 		{
-			System.out.println("NODES ARE DISCONNECTED");
-			return -1;
+			copy.put(entry.getKey(), new ArrayList<Edge<Character>>(entry.getValue()));
 		}
 
-		System.out.println(shortestDistanceByNode.get(node2));
-		return shortestDistanceByNode.get(node2);
+		return copy;
 	}
 
-	private enum TripCalculationMode
+	private static final class NodeDistance implements Comparable<NodeDistance>
 	{
-		EXACT_STOPS, MAXIMUM_STOPS;
+		private final Node<Character> node;
+		private final int distance;
+
+		private NodeDistance(Node<Character> node, int distance)
+		{
+			this.node = node;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(NodeDistance other)
+		{
+			return Integer.compare(distance, other.distance);
+		}
 	}
 }
@@ -0,0 +1,63 @@
+package graphproblem.logic;
+
+import graphproblem.model.Node;
+
+/**
+ * Read-only graph whose nodes are addressed by a dense index. The edges of a
+ * node are copied into caller provided arrays, so implementations are free to
+ * store them in any encoding.
+ * 
+ * @author jojo
+ */
+interface IndexedAdjacency
+{
+	/**
+	 * @return the number of indexed nodes.
+	 */
+	int getNodeCount();
+
+	/**
+	 * @return the index of {@code node}, or -1 if {@code node} is not part of
+	 *         the graph.
+	 */
+	int indexOf(Node<Character> node);
+
+	/**
+	 * @return the node stored at {@code index}.
+	 */
+	Node<Character> getNode(int index);
+
+	/**
+	 * @return the largest number of outgoing or incoming edges of any node,
+	 *         which is the required capacity of the arrays passed to
+	 *         {@link #getEdges(int, int[], int[])} and
+	 *         {@link #getInEdges(int, int[], int[])}.
+	 */
+	int getMaxDegree();
+
+	/**
+	 * Copies the outgoing edges of {@code node}.
+	 * 
+	 * @param node
+	 *            the node index.
+	 * @param targets
+	 *            receives the destination node indexes.
+	 * @param distances
+	 *            receives the edge distances.
+	 * @return the number of outgoing edges.
+	 */
+	int getEdges(int node, int[] targets, int[] distances);
+
+	/**
+	 * Copies the incoming edges of {@code node}.
+	 * 
+	 * @param node
+	 *            the node index.
+	 * @param sources
+	 *            receives the parent node indexes.
+	 * @param distances
+	 *            receives the edge distances.
+	 * @return the number of incoming edges.
+	 */
+	int getInEdges(int node, int[] sources, int[] distances);
+}
@@ -0,0 +1,264 @@
+package graphproblem.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Immutable, array based snapshot of an adjacency list. Every node is mapped to
+ * a dense index and the outgoing and incoming edges of each node are stored as
+ * contiguous ranges of primitive arrays.
+ * 
+ * @author jojo
+ */
+final class IndexedGraph implements IndexedAdjacency
+{
+	private final List<Node<Character>> nodes;
+	private final Map<Node<Character>, Integer> indexByNode;
+
+	private final int[] edgeOffsets;
+	private final int[] edgeTargets;
+	private final int[] edgeDistances;
+
+	private final int[] inEdgeOffsets;
+	private final int[] inEdgeSources;
+	private final int[] inEdgeDistances;
+	private final int maxDegree;
+
+	private IndexedGraph(List<Node<Character>> nodes, Map<Node<Character>, Integer> indexByNode, int[] edgeOffsets,
+			int[] edgeTargets, int[] edgeDistances)
+	{
+		this.nodes = nodes;
+		this.indexByNode = indexByNode;
+		this.edgeOffsets = edgeOffsets;
+		this.edgeTargets = edgeTargets;
+		this.edgeDistances = edgeDistances;
+
+		int nodeCount = nodes.size();
+		this.inEdgeOffsets = new int[nodeCount + 1];
+		this.inEdgeSources = new int[edgeTargets.length];
+		this.inEdgeDistances = new int[edgeTargets.length];
+
+		for (int edge = 0; edge < edgeTargets.length; edge++)
+		{
+			inEdgeOffsets[edgeTargets[edge] + 1]++;
+		}
+
+		int degree = 0;
+		for (int node = 0; node < nodeCount; node++)
+		{
+			degree = Math.max(degree, Math.max(inEdgeOffsets[node + 1], edgeOffsets[node + 1] - edgeOffsets[node]));
+			inEdgeOffsets[node + 1] += inEdgeOffsets[node];
+		}
+		this.maxDegree = degree;
+
+		int[] position = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++)
+		{
+			position[node] = inEdgeOffsets[node];
+		}
+
+		for (int node = 0; node < nodeCount; node++)
+		{
+			for (int edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++)
+			{
+				int slot = position[edgeTargets[edge]]++;
+				inEdgeSources[slot] = node;
+				inEdgeDistances[slot] = edgeDistances[edge];
+			}
+		}
+	}
+
+	/**
+	 * Creates an {@link IndexedGraph} from the given adjacency list. Nodes which
+	 * only appear as the destination of an edge are indexed as well.
+	 * 
+	 * @param adjacencyList
+	 *            the adjacency list to copy.
+	 * @return a new {@link IndexedGraph}.
+	 */
+	static IndexedGraph of(Map<Node<Character>, List<Edge<Character>>> adjacencyList)
+	{
+		List<Node<Character>> nodes = new ArrayList<Node<Character>>();
+		Map<Node<Character>, Integer> indexByNode = new HashMap<Node<Character>, Integer>();
+		int edgeCount = 0;
+
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : adjacencyList.entrySet())
+		{
+			addNode(entry.getKey(), nodes, indexByNode);
+			for (Edge<Character> singleEdge : entry.getValue())
+			{
+				addNode(singleEdge.getNode(), nodes, indexByNode);
+				edgeCount++;
+			}
+		}
+
+		int[] edgeOffsets = new int[nodes.size() + 1];
+		int[] edgeTargets = new int[edgeCount];
+		int[] edgeDistances = new int[edgeCount];
+
+		int edge = 0;
+		for (int node = 0; node < nodes.size(); node++)
+		{
+			edgeOffsets[node] = edge;
+			List<Edge<Character>> edges = adjacencyList.get(nodes.get(node));
+			if (edges == null)
+			{
+				continue;
+			}
+
+			for (Edge<Character> singleEdge : edges)
+			{
+				edgeTargets[edge] = indexByNode.get(singleEdge.getNode());
+				edgeDistances[edge] = singleEdge.getDistance();
+				edge++;
+			}
+		}
+		edgeOffsets[nodes.size()] = edge;
+
+		return new IndexedGraph(Collections.unmodifiableList(nodes), indexByNode, edgeOffsets, edgeTargets,
+				edgeDistances);
+	}
+
+	private static void addNode(Node<Character> node, List<Node<Character>> nodes,
+			Map<Node<Character>, Integer> indexByNode)
+	{
+		if (!indexByNode.containsKey(node))
+		{
+			indexByNode.put(node, nodes.size());
+			nodes.add(node);
+		}
+	}
+
+	/**
+	 * @return the number of indexed nodes.
+	 */
+	@Override
+	public int getNodeCount()
+	{
+		return nodes.size();
+	}
+
+	/**
+	 * @return the number of edges.
+	 */
+	int getEdgeCount()
+	{
+		return edgeTargets.length;
+	}
+
+	/**
+	 * @return the index of {@code node}, or -1 if {@code node} is not part of
+	 *         the graph.
+	 */
+	@Override
+	public int indexOf(Node<Character> node)
+	{
+		Integer index = indexByNode.get(node);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return the node stored at {@code index}.
+	 */
+	@Override
+	public Node<Character> getNode(int index)
+	{
+		return nodes.get(index);
+	}
+
+	/**
+	 * @return the first outgoing edge of {@code node}.
+	 */
+	int getEdgeStart(int node)
+	{
+		return edgeOffsets[node];
+	}
+
+	/**
+	 * @return one past the last outgoing edge of {@code node}.
+	 */
+	int getEdgeEnd(int node)
+	{
+		return edgeOffsets[node + 1];
+	}
+
+	/**
+	 * @return the destination node index of {@code edge}.
+	 */
+	int getEdgeTarget(int edge)
+	{
+		return edgeTargets[edge];
+	}
+
+	/**
+	 * @return the distance of {@code edge}.
+	 */
+	int getEdgeDistance(int edge)
+	{
+		return edgeDistances[edge];
+	}
+
+	/**
+	 * @return the first incoming edge of {@code node}.
+	 */
+	int getInEdgeStart(int node)
+	{
+		return inEdgeOffsets[node];
+	}
+
+	/**
+	 * @return one past the last incoming edge of {@code node}.
+	 */
+	int getInEdgeEnd(int node)
+	{
+		return inEdgeOffsets[node + 1];
+	}
+
+	/**
+	 * @return the source node index of incoming edge {@code inEdge}.
+	 */
+	int getInEdgeSource(int inEdge)
+	{
+		return inEdgeSources[inEdge];
+	}
+
+	/**
+	 * @return the distance of incoming edge {@code inEdge}.
+	 */
+	int getInEdgeDistance(int inEdge)
+	{
+		return inEdgeDistances[inEdge];
+	}
+
+	@Override
+	public int getMaxDegree()
+	{
+		return maxDegree;
+	}
+
+	@Override
+	public int getEdges(int node, int[] targets, int[] distances)
+	{
+		int start = edgeOffsets[node];
+		int count = edgeOffsets[node + 1] - start;
+		System.arraycopy(edgeTargets, start, targets, 0, count);
+		System.arraycopy(edgeDistances, start, distances, 0, count);
+		return count;
+	}
+
+	@Override
+	public int getInEdges(int node, int[] sources, int[] distances)
+	{
+		int start = inEdgeOffsets[node];
+		int count = inEdgeOffsets[node + 1] - start;
+		System.arraycopy(inEdgeSources, start, sources, 0, count);
+		System.arraycopy(inEdgeDistances, start, distances, 0, count);
+		return count;
+	}
+}
@@ -0,0 +1,397 @@
+package graphproblem.logic;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.Arrays;
+
+import graphproblem.model.DistanceEstimate;
+import graphproblem.model.Node;
+
+/**
+ * Estimates shortest distances from the distances between every node and a
+ * few landmark nodes.
+ *
+ * <p>
+ * Preprocessing runs two searches per landmark, one following and one
+ * reversing the edges, and keeps their distances, so memory grows with the
+ * number of landmarks times the number of nodes. Landmarks are picked one by
+ * one as the node farthest from all landmarks chosen so far.
+ * </p>
+ *
+ * <p>
+ * For a landmark {@code L} the route from {@code node1} over {@code L} to
+ * {@code node2} is an upper bound of the shortest distance, and the triangle
+ * inequality gives the lower bounds {@code d(L, node2) - d(L, node1)} and
+ * {@code d(node1, L) - d(node2, L)}. A query combines the bounds of all
+ * landmarks in time linear in the number of landmarks. On directed graphs
+ * landmarks cannot bound the stretch of every pair in advance, so each
+ * {@link DistanceEstimate} carries its own proven lower bound, and a query
+ * falls back to an exact search whenever the estimate could exceed the
+ * shortest distance by more than the requested stretch. The exact search is
+ * an A* search guided by the same lower bounds.
+ * </p>
+ *
+ * <p>
+ * Like {@link GraphProcessor#findShortestPathBasedOnDistance(Node, Node)} a
+ * route has to contain at least one edge. The oracle answers for the edges
+ * present when it was created and can be used by several threads at the same
+ * time.
+ * </p>
+ *
+ * @author jojo
+ */
+public class LandmarkDistanceOracle
+{
+	private static final int DEFAULT_LANDMARK_COUNT = 16;
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final IndexedGraph graph;
+	private final int[] landmarks;
+	private final int[][] distancesFromLandmark;
+	private final int[][] distancesToLandmark;
+	private final int[] minEdgeDistances;
+	private final int[] minInEdgeDistances;
+
+	/**
+	 * Creates an oracle with 16 landmarks.
+	 *
+	 * @param graphProcessor
+	 *            the {@link GraphProcessor} whose current edges are used.
+	 * @throws IllegalArgumentException
+	 *             if {@code graphProcessor} is {@code null}.
+	 */
+	public LandmarkDistanceOracle(GraphProcessor graphProcessor)
+	{
+		this(graphProcessor, DEFAULT_LANDMARK_COUNT);
+	}
+
+	/**
+	 * Creates an oracle.
+	 *
+	 * @param graphProcessor
+	 *            the {@link GraphProcessor} whose current edges are used.
+	 * @param landmarkCount
+	 *            the number of landmarks, which is reduced to the number of
+	 *            nodes if the graph is smaller.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code graphProcessor} is {@code null}</li>
+	 *             <li>{@code landmarkCount} is less than or equals to zero</li>
+	 *             </ul>
+	 */
+	public LandmarkDistanceOracle(GraphProcessor graphProcessor, int landmarkCount)
+	{
+		rejectIfNull(graphProcessor, "graphProcessor");
+		rejectIfLessThanOrEqualZero(landmarkCount, "landmarkCount");
+
+		this.graph = graphProcessor.getIndexedGraph();
+		int nodeCount = graph.getNodeCount();
+		this.landmarks = new int[Math.min(landmarkCount, nodeCount)];
+		this.distancesFromLandmark = new int[landmarks.length][];
+		this.distancesToLandmark = new int[landmarks.length][];
+		this.minEdgeDistances = new int[nodeCount];
+		this.minInEdgeDistances = new int[nodeCount];
+
+		Arrays.fill(minEdgeDistances, UNREACHABLE);
+		Arrays.fill(minInEdgeDistances, UNREACHABLE);
+		int landmark = 0;
+		int maxDegree = -1;
+		for (int node = 0; node < nodeCount; node++)
+		{
+			for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++)
+			{
+				int target = graph.getEdgeTarget(edge);
+				minEdgeDistances[node] = Math.min(minEdgeDistances[node], graph.getEdgeDistance(edge));
+				minInEdgeDistances[target] = Math.min(minInEdgeDistances[target], graph.getEdgeDistance(edge));
+			}
+
+			int degree = graph.getEdgeEnd(node) - graph.getEdgeStart(node) + graph.getInEdgeEnd(node)
+					- graph.getInEdgeStart(node);
+			if (degree > maxDegree)
+			{
+				maxDegree = degree;
+				landmark = node;
+			}
+		}
+
+		// starts at the best connected node, then repeatedly picks the node
+		// with the longest round trip to its closest landmark. Nodes without a
+		// round trip to any landmark are picked first.
+		long[] roundTrips = new long[nodeCount];
+		Arrays.fill(roundTrips, Long.MAX_VALUE);
+		for (int index = 0; index < landmarks.length; index++)
+		{
+			landmarks[index] = landmark;
+			distancesFromLandmark[index] = findDistances(landmark, false);
+			distancesToLandmark[index] = findDistances(landmark, true);
+
+			long longestRoundTrip = -1;
+			for (int node = 0; node < nodeCount; node++)
+			{
+				int distanceFromLandmark = distancesFromLandmark[index][node];
+				int distanceToLandmark = distancesToLandmark[index][node];
+				if (distanceFromLandmark != UNREACHABLE && distanceToLandmark != UNREACHABLE)
+				{
+					roundTrips[node] = Math.min(roundTrips[node], (long) distanceFromLandmark + distanceToLandmark);
+				}
+
+				if (roundTrips[node] > longestRoundTrip)
+				{
+					longestRoundTrip = roundTrips[node];
+					landmark = node;
+				}
+			}
+		}
+	}
+
+	private int[] findDistances(int source, boolean reversed)
+	{
+		int[] distances = new int[graph.getNodeCount()];
+		Arrays.fill(distances, UNREACHABLE);
+		distances[source] = 0;
+		DistanceHeap heap = new DistanceHeap();
+		heap.add(0, source);
+
+		while (!heap.isEmpty())
+		{
+			long entry = heap.remove();
+			int node = DistanceHeap.getNode(entry);
+			int distance = DistanceHeap.getDistance(entry);
+			if (distance > distances[node])
+			{
+				continue;
+			}
+
+			int start = reversed ? graph.getInEdgeStart(node) : graph.getEdgeStart(node);
+			int end = reversed ? graph.getInEdgeEnd(node) : graph.getEdgeEnd(node);
+			for (int edge = start; edge < end; edge++)
+			{
+				int next = reversed ? graph.getInEdgeSource(edge) : graph.getEdgeTarget(edge);
+				long nextDistance = (long) distance
+						+ (reversed ? graph.getInEdgeDistance(edge) : graph.getEdgeDistance(edge));
+				if (nextDistance < distances[next])
+				{
+					distances[next] = (int) nextDistance;
+					heap.add((int) nextDistance, next);
+				}
+			}
+		}
+
+		return distances;
+	}
+
+	/**
+	 * @return the number of landmarks.
+	 */
+	public int getLandmarkCount()
+	{
+		return landmarks.length;
+	}
+
+	/**
+	 * @return the number of bytes used by the distance tables of this oracle.
+	 */
+	public long getSizeInBytes()
+	{
+		return 4L * (2L * landmarks.length * graph.getNodeCount() + 2L * graph.getNodeCount() + landmarks.length);
+	}
+
+	/**
+	 * Estimates the shortest distance between {@code node1} and
+	 * {@code node2}.
+	 *
+	 * <p>
+	 * The returned distance is the length of an existing route which is at
+	 * most {@code maxStretch} times the shortest distance. If the landmarks
+	 * cannot prove that, an exact search is run, so a {@code maxStretch} of 1
+	 * always returns the shortest distance, while
+	 * {@link Double#POSITIVE_INFINITY} only searches if no landmark lies on a
+	 * route between the nodes.
+	 * </p>
+	 *
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @param maxStretch
+	 *            the factor by which the estimate may exceed the shortest
+	 *            distance.
+	 * @return the {@link DistanceEstimate}, which is
+	 *         {@link DistanceEstimate#disconnected() disconnected} if there
+	 *         is no route.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             <li>{@code maxStretch} is less than one or not a
+	 *             number</li>
+	 *             </ul>
+	 */
+	public DistanceEstimate estimate(Node<Character> node1, Node<Character> node2, double maxStretch)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+		if (!(maxStretch >= 1))
+		{
+			throw new IllegalArgumentException("maxStretch cannot be less than one.");
+		}
+
+		int source = graph.indexOf(node1);
+		int target = graph.indexOf(node2);
+		if (source < 0 || target < 0)
+		{
+			return DistanceEstimate.disconnected();
+		}
+
+		// a route from a node back to itself is a cycle, which the triangle
+		// inequality does not bound from below.
+		int lowerBound = source == target ? Math.max(minEdgeDistances[source], minInEdgeDistances[source])
+				: findLowerBound(source, target);
+		if (lowerBound == UNREACHABLE)
+		{
+			return DistanceEstimate.disconnected();
+		}
+
+		// a route without a direct edge has a first and a distinct last edge.
+		long upperBound = Long.MAX_VALUE;
+		for (int edge = graph.getEdgeStart(source); edge < graph.getEdgeEnd(source); edge++)
+		{
+			if (graph.getEdgeTarget(edge) == target)
+			{
+				upperBound = Math.min(upperBound, graph.getEdgeDistance(edge));
+			}
+		}
+		long twoEdgeBound = (long) minEdgeDistances[source] + minInEdgeDistances[target];
+		lowerBound = (int) Math.min(Math.max(lowerBound, Math.min(upperBound, twoEdgeBound)), Integer.MAX_VALUE);
+
+		for (int index = 0; index < landmarks.length; index++)
+		{
+			int distanceToLandmark = distancesToLandmark[index][source];
+			int distanceFromLandmark = distancesFromLandmark[index][target];
+			if (distanceToLandmark != UNREACHABLE && distanceFromLandmark != UNREACHABLE
+					&& (source != target || landmarks[index] != source))
+			{
+				upperBound = Math.min(upperBound, (long) distanceToLandmark + distanceFromLandmark);
+			}
+		}
+
+		if (upperBound <= Integer.MAX_VALUE && upperBound <= maxStretch * lowerBound)
+		{
+			return DistanceEstimate.of((int) upperBound, lowerBound);
+		}
+
+		return findExactDistance(source, target);
+	}
+
+	/**
+	 * Returns a lower bound of the distance from {@code node} to a different
+	 * {@code target}, or {@link #UNREACHABLE} if {@code target} is proven to
+	 * be unreachable.
+	 */
+	private int findLowerBound(int node, int target)
+	{
+		int lowerBound = Math.max(minEdgeDistances[node], minInEdgeDistances[target]);
+		if (lowerBound == UNREACHABLE)
+		{
+			return UNREACHABLE;
+		}
+
+		for (int index = 0; index < landmarks.length; index++)
+		{
+			int[] fromLandmark = distancesFromLandmark[index];
+			if (fromLandmark[node] != UNREACHABLE)
+			{
+				// the landmark reaches node, so it would reach target too.
+				if (fromLandmark[target] == UNREACHABLE)
+				{
+					return UNREACHABLE;
+				}
+				lowerBound = Math.max(lowerBound, fromLandmark[target] - fromLandmark[node]);
+			}
+
+			int[] toLandmark = distancesToLandmark[index];
+			if (toLandmark[target] != UNREACHABLE)
+			{
+				// target reaches the landmark, so node would reach it too.
+				if (toLandmark[node] == UNREACHABLE)
+				{
+					return UNREACHABLE;
+				}
+				lowerBound = Math.max(lowerBound, toLandmark[node] - toLandmark[target]);
+			}
+		}
+
+		return lowerBound;
+	}
+
+	/**
+	 * A* search, which orders nodes by their distance plus the lower bound of
+	 * their remaining distance to {@code target}. The lower bounds are
+	 * consistent, so {@code target} has its shortest distance when it is
+	 * first removed from the heap.
+	 */
+	private DistanceEstimate findExactDistance(int source, int target)
+	{
+		int[] distances = new int[graph.getNodeCount()];
+		int[] lowerBounds = new int[graph.getNodeCount()];
+		Arrays.fill(distances, UNREACHABLE);
+		Arrays.fill(lowerBounds, -1);
+		DistanceHeap heap = new DistanceHeap();
+
+		// the trip has to contain at least one edge, so the search starts from
+		// the neighbours of source rather than from source itself.
+		relaxEdges(source, 0, target, distances, lowerBounds, heap);
+
+		while (!heap.isEmpty())
+		{
+			long entry = heap.remove();
+			int node = DistanceHeap.getNode(entry);
+			if (DistanceHeap.getDistance(entry) > getPriority(distances[node], lowerBounds[node]))
+			{
+				continue;
+			}
+
+			if (node == target)
+			{
+				return DistanceEstimate.exact(distances[node]);
+			}
+
+			relaxEdges(node, distances[node], target, distances, lowerBounds, heap);
+		}
+
+		return DistanceEstimate.disconnected();
+	}
+
+	private void relaxEdges(int node, int distance, int target, int[] distances, int[] lowerBounds,
+			DistanceHeap heap)
+	{
+		for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++)
+		{
+			int next = graph.getEdgeTarget(edge);
+			long nextDistance = (long) distance + graph.getEdgeDistance(edge);
+			if (nextDistance >= distances[next])
+			{
+				continue;
+			}
+
+			if (lowerBounds[next] < 0)
+			{
+				lowerBounds[next] = next == target ? 0 : findLowerBound(next, target);
+			}
+
+			if (lowerBounds[next] != UNREACHABLE)
+			{
+				distances[next] = (int) nextDistance;
+				heap.add(getPriority(distances[next], lowerBounds[next]), next);
+			}
+		}
+	}
+
+	private static int getPriority(int distance, int lowerBound)
+	{
+		return (int) Math.min((long) distance + lowerBound, Integer.MAX_VALUE);
+	}
+}
@@ -0,0 +1,51 @@
+package graphproblem.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event which is committed for every query run through
+ * {@link GraphDiagnostics} with JFR export switched on.
+ * 
+ * @author jojo
+ */
+@Name("graphproblem.Query")
+@Label("Graph Query")
+@Category("Graph Problem")
+@Description("Search statistics of a single graph query")
+final class QueryEvent extends Event
+{
+	@Label("Query")
+	String query;
+
+	@Label("Nodes Visited")
+	long nodesVisited;
+
+	@Label("Edges Scanned")
+	long edgesScanned;
+
+	@Label("Heap Pushes")
+	long heapPushes;
+
+	@Label("Heap Pops")
+	long heapPops;
+
+	@Label("Max Depth")
+	@Description("Largest number of stops reached")
+	int maxDepth;
+
+	@Label("Max Queue Size")
+	long maxQueueSize;
+
+	@Label("Max Distance")
+	@Description("Largest travelled distance reached")
+	long maxDistance;
+
+	@Label("Allocated")
+	@DataAmount(DataAmount.BYTES)
+	long allocatedBytes;
+}
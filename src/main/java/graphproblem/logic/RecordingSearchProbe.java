@@ -0,0 +1,77 @@
+package graphproblem.logic;
+
+import graphproblem.model.QueryStats;
+
+/**
+ * {@link SearchProbe} which counts the events of a single query.
+ * 
+ * @author jojo
+ */
+final class RecordingSearchProbe extends SearchProbe
+{
+	private long nodesVisited;
+	private long edgesScanned;
+	private long heapPushes;
+	private long heapPops;
+	private int maxDepth;
+	private long maxQueueSize;
+	private long maxDistance;
+
+	@Override
+	void nodeVisited()
+	{
+		nodesVisited++;
+	}
+
+	@Override
+	void edgeScanned()
+	{
+		edgesScanned++;
+	}
+
+	@Override
+	void nodesVisited(long count)
+	{
+		nodesVisited += count;
+	}
+
+	@Override
+	void edgesScanned(long count)
+	{
+		edgesScanned += count;
+	}
+
+	@Override
+	void heapPushed()
+	{
+		heapPushes++;
+		maxQueueSize = Math.max(maxQueueSize, heapPushes - heapPops);
+	}
+
+	@Override
+	void heapPopped()
+	{
+		heapPops++;
+	}
+
+	@Override
+	void depthReached(int depth)
+	{
+		maxDepth = Math.max(maxDepth, depth);
+	}
+
+	@Override
+	void distanceReached(long distance)
+	{
+		maxDistance = Math.max(maxDistance, distance);
+	}
+
+	/**
+	 * @return the recorded counts as {@link QueryStats}.
+	 */
+	QueryStats toQueryStats(String query, long allocatedBytes, long wallTimeNanos)
+	{
+		return new QueryStats(query, nodesVisited, edgesScanned, heapPushes, heapPops, maxDepth, maxQueueSize,
+				maxDistance, allocatedBytes, wallTimeNanos);
+	}
+}
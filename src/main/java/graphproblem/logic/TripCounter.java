@@ -0,0 +1,1142 @@
+package graphproblem.logic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import graphproblem.model.TripCount;
+
+/**
+ * Counts trips on an {@link IndexedAdjacency} with dynamic programming over the
+ * number of stops (or the travelled distance) instead of enumerating every
+ * trip.
+ *
+ * <p>
+ * Only the part of the graph which is reachable from the starting node and
+ * from which the destination node is reachable is considered. Counting by
+ * stops classifies the strongly connected components of that part to choose
+ * between one step per stop and repeated squaring of its transfer matrix, see
+ * {@link #countByStops(int, int, int, boolean, CountingMode)}. Counting by
+ * distance only visits the distances which are actually reached.
+ * {@link CountingMode#saturating()} stops as soon as the count is known to
+ * exceed {@link Long#MAX_VALUE}.
+ * </p>
+ *
+ * @author jojo
+ */
+final class TripCounter
+{
+	private static final long SATURATED = Long.MAX_VALUE;
+
+	/**
+	 * The largest number of relevant nodes for which transfer matrices are
+	 * built, which keeps a single matrix at 8 MiB.
+	 */
+	private static final int MAX_MATRIX_SIZE = 1024;
+
+	/**
+	 * The largest estimated number of additions a count by stops may take
+	 * without transfer matrices, unless the graph itself bounds the number of
+	 * steps.
+	 */
+	private static final double MAX_WORK = 1e10;
+
+	/**
+	 * How the number of trips grows with the number of stops.
+	 */
+	private enum Growth
+	{
+		/**
+		 * The relevant subgraph is acyclic.
+		 */
+		NONE,
+
+		/**
+		 * Every strongly connected component is at most a single cycle.
+		 */
+		POLYNOMIAL,
+
+		/**
+		 * Some strongly connected component has more edges than nodes.
+		 */
+		EXPONENTIAL;
+	}
+
+	private final IndexedAdjacency graph;
+	private final SearchProbe probe;
+	private final int[] neighbours;
+	private final int[] edgeDistances;
+
+	/**
+	 * @param graph
+	 *            the graph to count on.
+	 * @param probe
+	 *            the {@link SearchProbe} which receives the counts of every
+	 *            layer, or {@code null} to count without instrumentation.
+	 */
+	TripCounter(IndexedAdjacency graph, SearchProbe probe)
+	{
+		this.graph = graph;
+		this.probe = probe;
+		this.neighbours = new int[graph.getMaxDegree()];
+		this.edgeDistances = new int[graph.getMaxDegree()];
+	}
+
+	/**
+	 * Counts the trips from {@code source} to {@code target} with exactly, or
+	 * at most, {@code stopCount} stops.
+	 *
+	 * <p>
+	 * The strongly connected components of the relevant subgraph decide how
+	 * the count grows with the number of stops:
+	 * <ul>
+	 * <li>without any cycle the number of stops is bounded by the number of
+	 * nodes</li>
+	 * <li>if every component is at most a single cycle the count grows
+	 * polynomially</li>
+	 * <li>if some component has more edges than nodes the count grows
+	 * exponentially, so {@link CountingMode#saturating()} reaches
+	 * {@link Long#MAX_VALUE} after O(64 * nodes) stops</li>
+	 * </ul>
+	 * Depending on the estimated cost, the count is either computed with one
+	 * dynamic programming step per stop, which ends as soon as the count has
+	 * saturated, or with O(log stopCount) squarings of the transfer matrix.
+	 * Exact counts of exponential growth always use the stepwise computation,
+	 * since their size grows linearly with the number of stops anyway.
+	 * </p>
+	 *
+	 * <p>
+	 * Only acyclic graphs and saturating counts of at most {@code stopCount}
+	 * stops on exponential growth have a number of steps bounded by the
+	 * graph. Every other count which cannot use transfer matrices, because it
+	 * has more than {@link #MAX_MATRIX_SIZE} relevant nodes or is an exact
+	 * count of exponential growth, is rejected if its steps are estimated to
+	 * exceed {@link #MAX_WORK}.
+	 * </p>
+	 *
+	 * @param source
+	 *            index of the starting node, or -1 if it is not in the graph.
+	 * @param target
+	 *            index of the ending node, or -1 if it is not in the graph.
+	 * @param stopCount
+	 *            the number of stops, greater than zero.
+	 * @param exactStops
+	 *            {@code true} to only count trips with exactly
+	 *            {@code stopCount} stops.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 * @throws IllegalArgumentException
+	 *             if counting is estimated to exceed {@link #MAX_WORK}.
+	 */
+	TripCount countByStops(int source, int target, int stopCount, boolean exactStops, CountingMode mode)
+	{
+		if (source < 0 || target < 0)
+		{
+			return zero(mode);
+		}
+
+		boolean[] relevant = findRelevantNodes(source, target);
+		if (!relevant[source])
+		{
+			return zero(mode);
+		}
+
+		int[] relevantNodes = toIndexArray(relevant);
+		int[] localIndexes = new int[graph.getNodeCount()];
+		for (int local = 0; local < relevantNodes.length; local++)
+		{
+			localIndexes[relevantNodes[local]] = local;
+		}
+		int[][] localEdges = toLocalEdges(relevant, relevantNodes, localIndexes);
+		int localSource = localIndexes[source];
+		int localTarget = localIndexes[target];
+
+		Growth growth = classifyGrowth(localEdges);
+		if (growth == Growth.NONE)
+		{
+			// no trip in an acyclic graph can have more stops than it has edges
+			if (stopCount >= relevantNodes.length)
+			{
+				if (exactStops)
+				{
+					return zero(mode);
+				}
+				stopCount = relevantNodes.length - 1;
+			}
+		}
+
+		double stepCost = estimateStepCost(localEdges, stopCount, exactStops, growth, mode);
+		double matrixCost = estimateMatrixCost(localEdges, stopCount, exactStops, growth, mode);
+		boolean boundedByGraph = growth == Growth.NONE
+				|| (growth == Growth.EXPONENTIAL && mode.isSaturating() && !exactStops);
+		if (!boundedByGraph && Double.isInfinite(matrixCost) && stepCost > MAX_WORK)
+		{
+			throw new IllegalArgumentException(
+					"stopCount is too large to count the trips between " + relevantNodes.length + " relevant nodes.");
+		}
+
+		if (matrixCost < stepCost)
+		{
+			if (probe != null)
+			{
+				probe.depthReached(stopCount);
+			}
+			if (mode.isExact())
+			{
+				return countByStopsWithMatrixExactly(localSource, localTarget, stopCount, exactStops, localEdges);
+			}
+
+			return countByStopsWithMatrix(localSource, localTarget, stopCount, exactStops, localEdges,
+					mode.getModulus());
+		}
+
+		if (mode.isExact())
+		{
+			return countByStopsExactly(localSource, localTarget, stopCount, exactStops, localEdges);
+		}
+
+		return countByStops(localSource, localTarget, stopCount, exactStops, localEdges, mode.getModulus());
+	}
+
+	/**
+	 * Estimates the number of additions of one dynamic programming step per
+	 * stop.
+	 */
+	private static double estimateStepCost(int[][] localEdges, int stopCount, boolean exactStops, Growth growth,
+			CountingMode mode)
+	{
+		int size = localEdges.length;
+		double steps = stopCount;
+		if (growth == Growth.EXPONENTIAL && mode.isSaturating() && !exactStops)
+		{
+			// a component with more edges than nodes has two different closed
+			// walks of at most 3 * size stops through one node, so 64 rounds
+			// of them plus the way there and back exceed Long.MAX_VALUE.
+			steps = Math.min(steps, 64 * 3.0 * size + 2.0 * size);
+		}
+
+		long edgeCount = 0;
+		for (int[] edges : localEdges)
+		{
+			edgeCount += edges.length;
+		}
+
+		double stepCost = steps * (edgeCount + size);
+		if (growth == Growth.EXPONENTIAL && mode.isExact())
+		{
+			// exact counts gain at least one bit per stop.
+			stepCost *= 1 + steps / 64;
+		}
+
+		return stepCost;
+	}
+
+	/**
+	 * Estimates the number of multiplications of squaring the transfer matrix
+	 * once per bit of {@code stopCount}, which is infinite where no matrix is
+	 * built.
+	 */
+	private static double estimateMatrixCost(int[][] localEdges, int stopCount, boolean exactStops, Growth growth,
+			CountingMode mode)
+	{
+		int size = localEdges.length;
+		if (size > MAX_MATRIX_SIZE || (growth == Growth.EXPONENTIAL && mode.isExact()))
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double squaringCost = (double) size * size * size * (exactStops ? 1 : 2);
+		return squaringCost * (32 - Integer.numberOfLeadingZeros(stopCount));
+	}
+
+	private TripCount countByStops(int source, int target, int stopCount, boolean exactStops, int[][] localEdges,
+			long modulus)
+	{
+		long[] current = new long[localEdges.length];
+		long[] next = new long[localEdges.length];
+		current[source] = add(0, 1, modulus);
+
+		long total = 0;
+		for (int stop = 1; stop <= stopCount; stop++)
+		{
+			if (probe != null)
+			{
+				probe.depthReached(stop);
+				recordLayer(current, localEdges);
+			}
+			Arrays.fill(next, 0);
+			for (int node = 0; node < localEdges.length; node++)
+			{
+				long paths = current[node];
+				if (paths == 0)
+				{
+					continue;
+				}
+
+				for (int nextNode : localEdges[node])
+				{
+					next[nextNode] = add(next[nextNode], paths, modulus);
+				}
+			}
+
+			if (!exactStops || stop == stopCount)
+			{
+				total = add(total, next[target], modulus);
+				if (modulus == 0 && total == SATURATED)
+				{
+					break;
+				}
+			}
+
+			long[] swap = current;
+			current = next;
+			next = swap;
+		}
+
+		return toTripCount(total, modulus);
+	}
+
+	private TripCount countByStopsExactly(int source, int target, int stopCount, boolean exactStops,
+			int[][] localEdges)
+	{
+		BigInteger[] current = zeros(localEdges.length);
+		BigInteger[] next = new BigInteger[localEdges.length];
+		current[source] = BigInteger.ONE;
+
+		BigInteger total = BigInteger.ZERO;
+		for (int stop = 1; stop <= stopCount; stop++)
+		{
+			if (probe != null)
+			{
+				probe.depthReached(stop);
+				recordLayer(current, localEdges);
+			}
+			Arrays.fill(next, BigInteger.ZERO);
+			for (int node = 0; node < localEdges.length; node++)
+			{
+				BigInteger paths = current[node];
+				if (paths.signum() == 0)
+				{
+					continue;
+				}
+
+				for (int nextNode : localEdges[node])
+				{
+					next[nextNode] = next[nextNode].add(paths);
+				}
+			}
+
+			if (!exactStops || stop == stopCount)
+			{
+				total = total.add(next[target]);
+			}
+
+			BigInteger[] swap = current;
+			current = next;
+			next = swap;
+		}
+
+		return new TripCount(total, TripCount.Status.EXACT);
+	}
+
+	/**
+	 * Counts with powers of the transfer matrix {@code A} of the relevant
+	 * subgraph. The bits of {@code stopCount} are processed from the lowest
+	 * one, keeping {@code A^(2^bit)} and the sum of {@code A^1} to
+	 * {@code A^(2^bit)}, which only the vectors of walks from {@code source}
+	 * are multiplied with.
+	 */
+	private static TripCount countByStopsWithMatrix(int source, int target, int stopCount, boolean exactStops,
+			int[][] localEdges, long modulus)
+	{
+		int size = localEdges.length;
+		long[][] power = new long[size][size];
+		for (int node = 0; node < size; node++)
+		{
+			for (int nextNode : localEdges[node])
+			{
+				power[node][nextNode] = add(power[node][nextNode], 1, modulus);
+			}
+		}
+		long[][] powerSum = exactStops ? null : copyOf(power);
+
+		// walks with exactly, and with at most, the stops of the bits so far
+		long[] walks = new long[size];
+		long[] walkSum = new long[size];
+		walks[source] = add(0, 1, modulus);
+
+		int remaining = stopCount;
+		while (true)
+		{
+			if ((remaining & 1) != 0)
+			{
+				if (powerSum != null)
+				{
+					addTo(walkSum, multiply(walks, powerSum, modulus), modulus);
+				}
+				walks = multiply(walks, power, modulus);
+			}
+
+			remaining >>>= 1;
+			if (remaining == 0)
+			{
+				break;
+			}
+
+			if (powerSum != null)
+			{
+				long[][] nextPowerSum = multiply(power, powerSum, modulus);
+				addTo(nextPowerSum, powerSum, modulus);
+				powerSum = nextPowerSum;
+			}
+			power = multiply(power, power, modulus);
+		}
+
+		return toTripCount(exactStops ? walks[target] : walkSum[target], modulus);
+	}
+
+	private static TripCount countByStopsWithMatrixExactly(int source, int target, int stopCount,
+			boolean exactStops, int[][] localEdges)
+	{
+		int size = localEdges.length;
+		BigInteger[][] power = new BigInteger[size][];
+		for (int node = 0; node < size; node++)
+		{
+			power[node] = zeros(size);
+			for (int nextNode : localEdges[node])
+			{
+				power[node][nextNode] = power[node][nextNode].add(BigInteger.ONE);
+			}
+		}
+		BigInteger[][] powerSum = exactStops ? null : copyOf(power);
+
+		BigInteger[] walks = zeros(size);
+		BigInteger[] walkSum = zeros(size);
+		walks[source] = BigInteger.ONE;
+
+		int remaining = stopCount;
+		while (true)
+		{
+			if ((remaining & 1) != 0)
+			{
+				if (powerSum != null)
+				{
+					addTo(walkSum, multiply(walks, powerSum));
+				}
+				walks = multiply(walks, power);
+			}
+
+			remaining >>>= 1;
+			if (remaining == 0)
+			{
+				break;
+			}
+
+			if (powerSum != null)
+			{
+				BigInteger[][] nextPowerSum = multiply(power, powerSum);
+				addTo(nextPowerSum, powerSum);
+				powerSum = nextPowerSum;
+			}
+			power = multiply(power, power);
+		}
+
+		return new TripCount(exactStops ? walks[target] : walkSum[target], TripCount.Status.EXACT);
+	}
+
+	/**
+	 * Counts the trips from {@code source} to {@code target} whose distance is
+	 * less than {@code maxDistance}.
+	 *
+	 * <p>
+	 * Partial trips are grouped by the distance they have travelled, and only
+	 * distances at which some partial trip actually ends are visited, in
+	 * increasing order. The work therefore depends on the number of distinct
+	 * distances reached below the limit, not on the edge distances or the
+	 * limit itself.
+	 * </p>
+	 *
+	 * @param source
+	 *            index of the starting node, or -1 if it is not in the graph.
+	 * @param target
+	 *            index of the ending node, or -1 if it is not in the graph.
+	 * @param maxDistance
+	 *            the exclusive distance limit, greater than zero.
+	 * @param mode
+	 *            the {@link CountingMode}.
+	 * @return the {@link TripCount}.
+	 */
+	TripCount countByDistance(int source, int target, int maxDistance, CountingMode mode)
+	{
+		if (source < 0 || target < 0)
+		{
+			return zero(mode);
+		}
+
+		boolean[] relevant = findRelevantNodes(source, target);
+		if (!relevant[source])
+		{
+			return zero(mode);
+		}
+
+		if (mode.isExact())
+		{
+			return countByDistanceExactly(source, target, maxDistance, relevant);
+		}
+
+		return countByDistance(source, target, maxDistance, relevant, mode.getModulus());
+	}
+
+	private TripCount countByDistance(int source, int target, int maxDistance, boolean[] relevant, long modulus)
+	{
+		TreeMap<Integer, LongBucket> buckets = new TreeMap<Integer, LongBucket>();
+		LongBucket start = new LongBucket();
+		start.append(source, 1);
+		buckets.put(0, start);
+		long[] counts = new long[graph.getNodeCount()];
+
+		long total = 0;
+		while (!buckets.isEmpty())
+		{
+			Map.Entry<Integer, LongBucket> entry = buckets.pollFirstEntry();
+			int distance = entry.getKey();
+			LongBucket bucket = entry.getValue();
+			int nodeCount = bucket.merge(counts, modulus);
+			if (probe != null)
+			{
+				probe.distanceReached(distance);
+				recordBucket(bucket.nodes, nodeCount, counts);
+			}
+			for (int index = 0; index < nodeCount; index++)
+			{
+				int node = bucket.nodes[index];
+				long paths = counts[node];
+				counts[node] = 0;
+				if (paths == 0)
+				{
+					continue;
+				}
+
+				if (node == target && distance > 0)
+				{
+					total = add(total, paths, modulus);
+					if (modulus == 0 && total == SATURATED)
+					{
+						return new TripCount(BigInteger.valueOf(SATURATED), TripCount.Status.SATURATED);
+					}
+				}
+
+				int edgeCount = graph.getEdges(node, neighbours, edgeDistances);
+				for (int edge = 0; edge < edgeCount; edge++)
+				{
+					long nextDistance = (long) distance + edgeDistances[edge];
+					if (relevant[neighbours[edge]] && nextDistance < maxDistance)
+					{
+						LongBucket nextBucket = buckets.get((int) nextDistance);
+						if (nextBucket == null)
+						{
+							nextBucket = new LongBucket();
+							buckets.put((int) nextDistance, nextBucket);
+						}
+						nextBucket.append(neighbours[edge], paths);
+					}
+				}
+			}
+		}
+
+		if (modulus != 0)
+		{
+			return new TripCount(BigInteger.valueOf(total), TripCount.Status.MODULAR);
+		}
+
+		return new TripCount(BigInteger.valueOf(total), TripCount.Status.EXACT);
+	}
+
+	private TripCount countByDistanceExactly(int source, int target, int maxDistance, boolean[] relevant)
+	{
+		TreeMap<Integer, Map<Integer, BigInteger>> buckets = new TreeMap<Integer, Map<Integer, BigInteger>>();
+		buckets.put(0, Collections.singletonMap(source, BigInteger.ONE));
+
+		BigInteger total = BigInteger.ZERO;
+		while (!buckets.isEmpty())
+		{
+			Map.Entry<Integer, Map<Integer, BigInteger>> entry = buckets.pollFirstEntry();
+			int distance = entry.getKey();
+			if (probe != null)
+			{
+				probe.distanceReached(distance);
+				recordBucket(entry.getValue().keySet());
+			}
+
+			for (Map.Entry<Integer, BigInteger> nodeEntry : entry.getValue().entrySet())
+			{
+				int node = nodeEntry.getKey();
+				BigInteger paths = nodeEntry.getValue();
+				if (node == target && distance > 0)
+				{
+					total = total.add(paths);
+				}
+
+				int edgeCount = graph.getEdges(node, neighbours, edgeDistances);
+				for (int edge = 0; edge < edgeCount; edge++)
+				{
+					long nextDistance = (long) distance + edgeDistances[edge];
+					if (relevant[neighbours[edge]] && nextDistance < maxDistance)
+					{
+						Map<Integer, BigInteger> nextBucket = buckets.get((int) nextDistance);
+						if (nextBucket == null)
+						{
+							nextBucket = new HashMap<Integer, BigInteger>();
+							buckets.put((int) nextDistance, nextBucket);
+						}
+
+						BigInteger previousPaths = nextBucket.get(neighbours[edge]);
+						nextBucket.put(neighbours[edge], previousPaths == null ? paths : previousPaths.add(paths));
+					}
+				}
+			}
+		}
+
+		return new TripCount(total, TripCount.Status.EXACT);
+	}
+
+	/**
+	 * Partial trip counts which end at the same distance, kept as parallel
+	 * arrays in which a node may appear more than once until
+	 * {@link #merge(long[], long)} is called.
+	 */
+	private static final class LongBucket
+	{
+		private int[] nodes = new int[4];
+		private long[] counts = new long[4];
+		private int size;
+
+		private void append(int node, long count)
+		{
+			if (size == nodes.length)
+			{
+				nodes = Arrays.copyOf(nodes, size * 2);
+				counts = Arrays.copyOf(counts, size * 2);
+			}
+
+			nodes[size] = node;
+			counts[size++] = count;
+		}
+
+		/**
+		 * Sums the counts of every node into {@code totals}, which has to be
+		 * zero for all nodes, and leaves each node once at the start of
+		 * {@link #nodes}.
+		 *
+		 * @return the number of distinct nodes.
+		 */
+		private int merge(long[] totals, long modulus)
+		{
+			int distinct = 0;
+			for (int index = 0; index < size; index++)
+			{
+				int node = nodes[index];
+				boolean isNew = totals[node] == 0;
+				totals[node] = add(totals[node], counts[index], modulus);
+				if (isNew)
+				{
+					nodes[distinct++] = node;
+				}
+			}
+
+			return distinct;
+		}
+	}
+
+	/**
+	 * Adds two counts. A {@code modulus} of zero selects saturating
+	 * arithmetic.
+	 */
+	private static long add(long a, long b, long modulus)
+	{
+		long sum = a + b;
+		if (modulus == 0)
+		{
+			return sum < 0 ? SATURATED : sum;
+		}
+
+		// a and b are already reduced, so a single subtraction is enough, even
+		// if a + b overflowed.
+		return (sum < 0 || sum >= modulus) ? sum - modulus : sum;
+	}
+
+	/**
+	 * Multiplies two counts. A {@code modulus} of zero selects saturating
+	 * arithmetic.
+	 */
+	private static long multiply(long a, long b, long modulus)
+	{
+		if (a == 0 || b == 0)
+		{
+			return 0;
+		}
+
+		if (modulus == 0)
+		{
+			return a > SATURATED / b ? SATURATED : a * b;
+		}
+
+		if (((a | b) >>> 31) == 0)
+		{
+			return a * b % modulus;
+		}
+
+		return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(BigInteger.valueOf(modulus)).longValue();
+	}
+
+	private static long[] multiply(long[] vector, long[][] matrix, long modulus)
+	{
+		long[] product = new long[vector.length];
+		for (int middle = 0; middle < vector.length; middle++)
+		{
+			long factor = vector[middle];
+			if (factor == 0)
+			{
+				continue;
+			}
+
+			long[] row = matrix[middle];
+			for (int column = 0; column < row.length; column++)
+			{
+				if (row[column] != 0)
+				{
+					product[column] = add(product[column], multiply(factor, row[column], modulus), modulus);
+				}
+			}
+		}
+
+		return product;
+	}
+
+	private static long[][] multiply(long[][] left, long[][] right, long modulus)
+	{
+		long[][] product = new long[left.length][];
+		for (int row = 0; row < left.length; row++)
+		{
+			product[row] = multiply(left[row], right, modulus);
+		}
+
+		return product;
+	}
+
+	private static void addTo(long[] sum, long[] addend, long modulus)
+	{
+		for (int index = 0; index < sum.length; index++)
+		{
+			sum[index] = add(sum[index], addend[index], modulus);
+		}
+	}
+
+	private static void addTo(long[][] sum, long[][] addend, long modulus)
+	{
+		for (int row = 0; row < sum.length; row++)
+		{
+			addTo(sum[row], addend[row], modulus);
+		}
+	}
+
+	private static long[][] copyOf(long[][] matrix)
+	{
+		long[][] copy = new long[matrix.length][];
+		for (int row = 0; row < matrix.length; row++)
+		{
+			copy[row] = matrix[row].clone();
+		}
+
+		return copy;
+	}
+
+	private static BigInteger[] multiply(BigInteger[] vector, BigInteger[][] matrix)
+	{
+		BigInteger[] product = zeros(vector.length);
+		for (int middle = 0; middle < vector.length; middle++)
+		{
+			BigInteger factor = vector[middle];
+			if (factor.signum() == 0)
+			{
+				continue;
+			}
+
+			BigInteger[] row = matrix[middle];
+			for (int column = 0; column < row.length; column++)
+			{
+				if (row[column].signum() != 0)
+				{
+					product[column] = product[column].add(factor.multiply(row[column]));
+				}
+			}
+		}
+
+		return product;
+	}
+
+	private static BigInteger[][] multiply(BigInteger[][] left, BigInteger[][] right)
+	{
+		BigInteger[][] product = new BigInteger[left.length][];
+		for (int row = 0; row < left.length; row++)
+		{
+			product[row] = multiply(left[row], right);
+		}
+
+		return product;
+	}
+
+	private static void addTo(BigInteger[] sum, BigInteger[] addend)
+	{
+		for (int index = 0; index < sum.length; index++)
+		{
+			sum[index] = sum[index].add(addend[index]);
+		}
+	}
+
+	private static void addTo(BigInteger[][] sum, BigInteger[][] addend)
+	{
+		for (int row = 0; row < sum.length; row++)
+		{
+			addTo(sum[row], addend[row]);
+		}
+	}
+
+	private static BigInteger[][] copyOf(BigInteger[][] matrix)
+	{
+		BigInteger[][] copy = new BigInteger[matrix.length][];
+		for (int row = 0; row < matrix.length; row++)
+		{
+			copy[row] = matrix[row].clone();
+		}
+
+		return copy;
+	}
+
+	private static BigInteger[] zeros(int size)
+	{
+		BigInteger[] zeros = new BigInteger[size];
+		Arrays.fill(zeros, BigInteger.ZERO);
+		return zeros;
+	}
+
+	private static TripCount toTripCount(long count, long modulus)
+	{
+		if (modulus != 0)
+		{
+			return new TripCount(BigInteger.valueOf(count), TripCount.Status.MODULAR);
+		}
+
+		if (count == SATURATED)
+		{
+			return new TripCount(BigInteger.valueOf(SATURATED), TripCount.Status.SATURATED);
+		}
+
+		return new TripCount(BigInteger.valueOf(count), TripCount.Status.EXACT);
+	}
+
+	/**
+	 * Reports the nodes of a layer with trips to {@link #probe}, together
+	 * with their outgoing edges. The counting loops themselves do not call the
+	 * probe, so this extra pass is only made for instrumented queries.
+	 */
+	private void recordLayer(long[] current, int[][] localEdges)
+	{
+		long nodeCount = 0;
+		long edgeCount = 0;
+		for (int node = 0; node < current.length; node++)
+		{
+			if (current[node] != 0)
+			{
+				nodeCount++;
+				edgeCount += localEdges[node].length;
+			}
+		}
+		probe.nodesVisited(nodeCount);
+		probe.edgesScanned(edgeCount);
+	}
+
+	private void recordLayer(BigInteger[] current, int[][] localEdges)
+	{
+		long nodeCount = 0;
+		long edgeCount = 0;
+		for (int node = 0; node < current.length; node++)
+		{
+			if (current[node].signum() != 0)
+			{
+				nodeCount++;
+				edgeCount += localEdges[node].length;
+			}
+		}
+		probe.nodesVisited(nodeCount);
+		probe.edgesScanned(edgeCount);
+	}
+
+	private void recordBucket(int[] nodes, int size, long[] counts)
+	{
+		long nodeCount = 0;
+		long edgeCount = 0;
+		for (int index = 0; index < size; index++)
+		{
+			if (counts[nodes[index]] != 0)
+			{
+				nodeCount++;
+				edgeCount += graph.getEdges(nodes[index], neighbours, edgeDistances);
+			}
+		}
+		probe.nodesVisited(nodeCount);
+		probe.edgesScanned(edgeCount);
+	}
+
+	private void recordBucket(Set<Integer> nodes)
+	{
+		long edgeCount = 0;
+		for (int node : nodes)
+		{
+			edgeCount += graph.getEdges(node, neighbours, edgeDistances);
+		}
+		probe.nodesVisited(nodes.size());
+		probe.edgesScanned(edgeCount);
+	}
+
+	/**
+	 * Reports the nodes a search of {@link #findRelevantNodes(int, int)} has
+	 * reached to {@link #probe}, together with the edges it has scanned.
+	 */
+	private void recordSearch(boolean[] reached, boolean backwards)
+	{
+		long nodeCount = 0;
+		long edgeCount = 0;
+		for (int node = 0; node < reached.length; node++)
+		{
+			if (reached[node])
+			{
+				nodeCount++;
+				edgeCount += backwards ? graph.getInEdges(node, neighbours, edgeDistances)
+						: graph.getEdges(node, neighbours, edgeDistances);
+			}
+		}
+		probe.nodesVisited(nodeCount);
+		probe.edgesScanned(edgeCount);
+	}
+
+	/**
+	 * @return for every node whether it is reachable from {@code source} and
+	 *         {@code target} is reachable from it.
+	 */
+	private boolean[] findRelevantNodes(int source, int target)
+	{
+		int nodeCount = graph.getNodeCount();
+		boolean[] reachable = new boolean[nodeCount];
+		int[] stack = new int[nodeCount];
+
+		int size = 0;
+		reachable[source] = true;
+		stack[size++] = source;
+		while (size > 0)
+		{
+			int node = stack[--size];
+			int edgeCount = graph.getEdges(node, neighbours, edgeDistances);
+			for (int edge = 0; edge < edgeCount; edge++)
+			{
+				int nextNode = neighbours[edge];
+				if (!reachable[nextNode])
+				{
+					reachable[nextNode] = true;
+					stack[size++] = nextNode;
+				}
+			}
+		}
+
+		if (probe != null)
+		{
+			recordSearch(reachable, false);
+		}
+
+		boolean[] relevant = new boolean[nodeCount];
+		if (!reachable[target])
+		{
+			return relevant;
+		}
+
+		relevant[target] = true;
+		stack[size++] = target;
+		while (size > 0)
+		{
+			int node = stack[--size];
+			int inEdgeCount = graph.getInEdges(node, neighbours, edgeDistances);
+			for (int inEdge = 0; inEdge < inEdgeCount; inEdge++)
+			{
+				int previousNode = neighbours[inEdge];
+				if (reachable[previousNode] && !relevant[previousNode])
+				{
+					relevant[previousNode] = true;
+					stack[size++] = previousNode;
+				}
+			}
+		}
+
+		if (probe != null)
+		{
+			recordSearch(relevant, true);
+		}
+
+		return relevant;
+	}
+
+	/**
+	 * @return the outgoing edges of every relevant node which lead to a
+	 *         relevant node, addressed by their position in
+	 *         {@code relevantNodes}.
+	 */
+	private int[][] toLocalEdges(boolean[] relevant, int[] relevantNodes, int[] localIndexes)
+	{
+		int[][] localEdges = new int[relevantNodes.length][];
+		for (int local = 0; local < relevantNodes.length; local++)
+		{
+			int edgeCount = graph.getEdges(relevantNodes[local], neighbours, edgeDistances);
+			int[] targets = new int[edgeCount];
+			int count = 0;
+			for (int edge = 0; edge < edgeCount; edge++)
+			{
+				if (relevant[neighbours[edge]])
+				{
+					targets[count++] = localIndexes[neighbours[edge]];
+				}
+			}
+			localEdges[local] = Arrays.copyOf(targets, count);
+		}
+
+		return localEdges;
+	}
+
+	/**
+	 * Uses Tarjan's algorithm to find the strongly connected components of
+	 * {@code localEdges} and compares the number of edges inside each of them
+	 * with its number of nodes.
+	 */
+	private static Growth classifyGrowth(int[][] localEdges)
+	{
+		int size = localEdges.length;
+		int[] order = new int[size];
+		int[] lowLink = new int[size];
+		int[] component = new int[size];
+		Arrays.fill(component, -1);
+		int[] edgePositions = new int[size];
+		int[] componentStack = new int[size];
+		int[] callStack = new int[size];
+		int componentStackSize = 0;
+		int componentCount = 0;
+		int visited = 0;
+
+		for (int root = 0; root < size; root++)
+		{
+			if (order[root] != 0)
+			{
+				continue;
+			}
+
+			int depth = 0;
+			order[root] = lowLink[root] = ++visited;
+			componentStack[componentStackSize++] = root;
+			callStack[depth++] = root;
+			while (depth > 0)
+			{
+				int node = callStack[depth - 1];
+				if (edgePositions[node] < localEdges[node].length)
+				{
+					int nextNode = localEdges[node][edgePositions[node]++];
+					if (order[nextNode] == 0)
+					{
+						order[nextNode] = lowLink[nextNode] = ++visited;
+						componentStack[componentStackSize++] = nextNode;
+						callStack[depth++] = nextNode;
+					}
+					else if (component[nextNode] < 0)
+					{
+						lowLink[node] = Math.min(lowLink[node], order[nextNode]);
+					}
+					continue;
+				}
+
+				depth--;
+				if (lowLink[node] == order[node])
+				{
+					int member;
+					do
+					{
+						member = componentStack[--componentStackSize];
+						component[member] = componentCount;
+					}
+					while (member != node);
+					componentCount++;
+				}
+				else
+				{
+					int parent = callStack[depth - 1];
+					lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+				}
+			}
+		}
+
+		int[] nodeCounts = new int[componentCount];
+		int[] edgeCounts = new int[componentCount];
+		for (int node = 0; node < size; node++)
+		{
+			nodeCounts[component[node]]++;
+			for (int nextNode : localEdges[node])
+			{
+				if (component[nextNode] == component[node])
+				{
+					edgeCounts[component[node]]++;
+				}
+			}
+		}
+
+		Growth growth = Growth.NONE;
+		for (int index = 0; index < componentCount; index++)
+		{
+			if (edgeCounts[index] > nodeCounts[index])
+			{
+				return Growth.EXPONENTIAL;
+			}
+			if (edgeCounts[index] > 0)
+			{
+				growth = Growth.POLYNOMIAL;
+			}
+		}
+
+		return growth;
+	}
+
+	private static int[] toIndexArray(boolean[] flags)
+	{
+		int count = 0;
+		for (boolean flag : flags)
+		{
+			count += flag ? 1 : 0;
+		}
+
+		int[] indexes = new int[count];
+		int position = 0;
+		for (int index = 0; index < flags.length; index++)
+		{
+			if (flags[index])
+			{
+				indexes[position++] = index;
+			}
+		}
+
+		return indexes;
+	}
+
+	private static TripCount zero(CountingMode mode)
+	{
+		return new TripCount(BigInteger.ZERO, mode.isModular() ? TripCount.Status.MODULAR : TripCount.Status.EXACT);
+	}
+}
@@ -0,0 +1,140 @@
+package graphproblem.model;
+
+/**
+ * Represents an estimated shortest distance together with a proven lower
+ * bound of the real distance.
+ *
+ * <p>
+ * The estimated distance is the length of an existing route, so the real
+ * distance lies between {@link #getLowerBound()} and {@link #getDistance()}.
+ * </p>
+ *
+ * @author jojo
+ */
+public class DistanceEstimate
+{
+	private static final DistanceEstimate DISCONNECTED = new DistanceEstimate(-1, -1);
+
+	private final int distance;
+	private final int lowerBound;
+
+	private DistanceEstimate(int distance, int lowerBound)
+	{
+		this.distance = distance;
+		this.lowerBound = lowerBound;
+	}
+
+	/**
+	 * Creates an estimate of a connected pair of nodes.
+	 *
+	 * @param distance
+	 *            the length of a route between the nodes.
+	 * @param lowerBound
+	 *            a lower bound of the shortest distance.
+	 * @return the {@link DistanceEstimate}.
+	 * @throws IllegalArgumentException
+	 *             if {@code lowerBound} is less than or equal to zero or
+	 *             greater than {@code distance}.
+	 */
+	public static DistanceEstimate of(int distance, int lowerBound)
+	{
+		if (lowerBound <= 0 || lowerBound > distance)
+		{
+			throw new IllegalArgumentException("lowerBound has to be between one and distance.");
+		}
+
+		return new DistanceEstimate(distance, lowerBound);
+	}
+
+	/**
+	 * @param distance
+	 *            the shortest distance.
+	 * @return the {@link DistanceEstimate} of a known shortest distance.
+	 * @throws IllegalArgumentException
+	 *             if {@code distance} is less than or equal to zero.
+	 */
+	public static DistanceEstimate exact(int distance)
+	{
+		return of(distance, distance);
+	}
+
+	/**
+	 * @return the {@link DistanceEstimate} of nodes which are disconnected.
+	 */
+	public static DistanceEstimate disconnected()
+	{
+		return DISCONNECTED;
+	}
+
+	/**
+	 * @return the estimated distance, which is never less than the shortest
+	 *         distance, or -1 if the nodes are disconnected.
+	 */
+	public int getDistance()
+	{
+		return distance;
+	}
+
+	/**
+	 * @return the lower bound of the shortest distance, or -1 if the nodes
+	 *         are disconnected.
+	 */
+	public int getLowerBound()
+	{
+		return lowerBound;
+	}
+
+	/**
+	 * @return the factor by which {@link #getDistance()} exceeds the shortest
+	 *         distance at most, which is 1 for exact and disconnected results.
+	 */
+	public double getStretch()
+	{
+		return isDisconnected() ? 1 : (double) distance / lowerBound;
+	}
+
+	/**
+	 * @return whether {@link #getDistance()} is the shortest distance.
+	 */
+	public boolean isExact()
+	{
+		return distance == lowerBound;
+	}
+
+	/**
+	 * @return whether the nodes are disconnected.
+	 */
+	public boolean isDisconnected()
+	{
+		return distance < 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + distance;
+		result = prime * result + lowerBound;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DistanceEstimate other = (DistanceEstimate) obj;
+		return distance == other.distance && lowerBound == other.lowerBound;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "DistanceEstimate [distance=" + distance + ", lowerBound=" + lowerBound + "]";
+	}
+}
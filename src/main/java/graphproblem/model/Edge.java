@@ -3,13 +3,18 @@ package graphproblem.model;
 import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
 import static graphproblem.util.ArgumentChecker.rejectIfNull;
 
+import java.io.Serializable;
+
 /**
- * Represents an edge of a graph.
+ * Represents an edge of a graph. An edge is serializable if the value of its
+ * node is.
  * 
  * @author jojo
  */
-public class Edge<T>
+public class Edge<T> implements Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	private final Node<T> node;
 	private final int distance;
 
@@ -2,13 +2,17 @@ package graphproblem.model;
 
 import static graphproblem.util.ArgumentChecker.rejectIfNull;
 
+import java.io.Serializable;
+
 /**
- * Represents a node of a graph.
+ * Represents a node of a graph. A node is serializable if its value is.
  * 
  * @author jojo
  */
-public class Node<T>
+public class Node<T> implements Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	private final T value;
 
 	/**
@@ -0,0 +1,59 @@
+package graphproblem.model;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+/**
+ * The result of a query together with its {@link QueryStats}.
+ * 
+ * @param <T>
+ *            the type of the result.
+ * @author jojo
+ */
+public class QueryResult<T>
+{
+	private final T value;
+	private final QueryStats stats;
+
+	/**
+	 * Creates a new {@link QueryResult}.
+	 * 
+	 * @param value
+	 *            the result of the query.
+	 * @param stats
+	 *            the {@link QueryStats} of the query.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code value} is {@code null}</li>
+	 *             <li>{@code stats} is {@code null}</li>
+	 *             </ul>
+	 */
+	public QueryResult(T value, QueryStats stats)
+	{
+		this.value = rejectIfNull(value, "value");
+		this.stats = rejectIfNull(stats, "stats");
+	}
+
+	/**
+	 * @return the result of the query, which cannot be {@code null}.
+	 */
+	public T getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * @return the {@link QueryStats} of the query, which cannot be
+	 *         {@code null}.
+	 */
+	public QueryStats getStats()
+	{
+		return stats;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "QueryResult [value=" + value + ", stats=" + stats + "]";
+	}
+}
@@ -0,0 +1,161 @@
+package graphproblem.model;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+/**
+ * Search statistics of a single query.
+ * 
+ * @author jojo
+ */
+public class QueryStats
+{
+	private final String query;
+	private final long nodesVisited;
+	private final long edgesScanned;
+	private final long heapPushes;
+	private final long heapPops;
+	private final int maxDepth;
+	private final long maxQueueSize;
+	private final long maxDistance;
+	private final long allocatedBytes;
+	private final long wallTimeNanos;
+
+	/**
+	 * Creates a new {@link QueryStats}.
+	 * 
+	 * @param query
+	 *            the name of the query.
+	 * @param nodesVisited
+	 *            the number of expanded nodes.
+	 * @param edgesScanned
+	 *            the number of examined edges.
+	 * @param heapPushes
+	 *            the number of priority queue insertions.
+	 * @param heapPops
+	 *            the number of priority queue removals.
+	 * @param maxDepth
+	 *            the largest number of stops reached, which is the length of
+	 *            the route or the last counting layer of a count by stops.
+	 * @param maxQueueSize
+	 *            the largest size of the priority queue.
+	 * @param maxDistance
+	 *            the largest travelled distance reached, which is the
+	 *            distance of the route, of the last node settled by a
+	 *            shortest path search or of the last counting layer of a
+	 *            count by distance.
+	 * @param allocatedBytes
+	 *            the number of bytes allocated by the querying thread, or -1 if
+	 *            the JVM cannot measure it.
+	 * @param wallTimeNanos
+	 *            the elapsed time in nanoseconds.
+	 * @throws IllegalArgumentException
+	 *             if {@code query} is {@code null}.
+	 */
+	public QueryStats(String query, long nodesVisited, long edgesScanned, long heapPushes, long heapPops,
+			int maxDepth, long maxQueueSize, long maxDistance, long allocatedBytes, long wallTimeNanos)
+	{
+		this.query = rejectIfNull(query, "query");
+		this.nodesVisited = nodesVisited;
+		this.edgesScanned = edgesScanned;
+		this.heapPushes = heapPushes;
+		this.heapPops = heapPops;
+		this.maxDepth = maxDepth;
+		this.maxQueueSize = maxQueueSize;
+		this.maxDistance = maxDistance;
+		this.allocatedBytes = allocatedBytes;
+		this.wallTimeNanos = wallTimeNanos;
+	}
+
+	/**
+	 * @return the name of the query, which cannot be {@code null}.
+	 */
+	public String getQuery()
+	{
+		return query;
+	}
+
+	/**
+	 * @return the number of expanded nodes.
+	 */
+	public long getNodesVisited()
+	{
+		return nodesVisited;
+	}
+
+	/**
+	 * @return the number of examined edges.
+	 */
+	public long getEdgesScanned()
+	{
+		return edgesScanned;
+	}
+
+	/**
+	 * @return the number of priority queue insertions.
+	 */
+	public long getHeapPushes()
+	{
+		return heapPushes;
+	}
+
+	/**
+	 * @return the number of priority queue removals.
+	 */
+	public long getHeapPops()
+	{
+		return heapPops;
+	}
+
+	/**
+	 * @return the largest number of stops reached, which is the length of the
+	 *         route or the last counting layer of a count by stops, else 0.
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	/**
+	 * @return the largest size of the priority queue, else 0.
+	 */
+	public long getMaxQueueSize()
+	{
+		return maxQueueSize;
+	}
+
+	/**
+	 * @return the largest travelled distance reached, which is the distance of
+	 *         the route, of the last node settled by a shortest path search or
+	 *         of the last counting layer of a count by distance, else 0.
+	 */
+	public long getMaxDistance()
+	{
+		return maxDistance;
+	}
+
+	/**
+	 * @return the number of bytes allocated by the querying thread, or -1 if
+	 *         the JVM cannot measure it.
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds.
+	 */
+	public long getWallTimeNanos()
+	{
+		return wallTimeNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "QueryStats [query=" + query + ", nodesVisited=" + nodesVisited + ", edgesScanned=" + edgesScanned
+				+ ", heapPushes=" + heapPushes + ", heapPops=" + heapPops + ", maxDepth=" + maxDepth
+				+ ", maxQueueSize=" + maxQueueSize + ", maxDistance=" + maxDistance + ", allocatedBytes=" + allocatedBytes
+				+ ", wallTimeNanos=" + wallTimeNanos + "]";
+	}
+}
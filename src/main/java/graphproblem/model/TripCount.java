@@ -0,0 +1,138 @@
+package graphproblem.model;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.math.BigInteger;
+
+/**
+ * Represents the result of a trip counting query together with the status
+ * describing how {@link #getValue()} relates to the real number of trips.
+ * 
+ * @author jojo
+ */
+public class TripCount
+{
+	/**
+	 * Describes how the counted value relates to the real number of trips.
+	 */
+	public enum Status
+	{
+		/**
+		 * The value is the exact number of trips.
+		 */
+		EXACT,
+
+		/**
+		 * The real number of trips is greater than or equal to
+		 * {@link Long#MAX_VALUE}, which is returned as the value.
+		 */
+		SATURATED,
+
+		/**
+		 * The value is the number of trips modulo the requested modulus.
+		 */
+		MODULAR;
+	}
+
+	private final BigInteger value;
+	private final Status status;
+
+	/**
+	 * Creates a new {@link TripCount}.
+	 * 
+	 * @param value
+	 *            the counted value.
+	 * @param status
+	 *            the {@link Status} of {@code value}.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code value} is {@code null}</li>
+	 *             <li>{@code status} is {@code null}</li>
+	 *             </ul>
+	 */
+	public TripCount(BigInteger value, Status status)
+	{
+		this.value = rejectIfNull(value, "value");
+		this.status = rejectIfNull(status, "status");
+	}
+
+	/**
+	 * @return the counted value. The returned value cannot be {@code null}.
+	 */
+	public BigInteger getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * @return the {@link Status} of the counted value. The returned value
+	 *         cannot be {@code null}.
+	 */
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * @return {@code true} if the real number of trips did not fit into a
+	 *         {@code long}.
+	 */
+	public boolean isSaturated()
+	{
+		return status == Status.SATURATED;
+	}
+
+	/**
+	 * @return the counted value as {@code long}.
+	 * @throws ArithmeticException
+	 *             if the value does not fit into a {@code long}.
+	 */
+	public long longValue()
+	{
+		if (value.bitLength() >= Long.SIZE)
+		{
+			throw new ArithmeticException("trip count " + value + " does not fit into a long.");
+		}
+
+		return value.longValue();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((status == null) ? 0 : status.hashCode());
+		result = prime * result + ((value == null) ? 0 : value.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TripCount other = (TripCount) obj;
+		if (status != other.status)
+			return false;
+		if (value == null)
+		{
+			if (other.value != null)
+				return false;
+		}
+		else if (!value.equals(other.value))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "TripCount [value=" + value + ", status=" + status + "]";
+	}
+}
@@ -0,0 +1,22 @@
+package graphproblem.partition;
+
+import java.util.Map;
+
+import graphproblem.model.Node;
+
+/**
+ * Asks a {@link ShardWorker} for the shortest distance inside its shard from
+ * every boundary node to every boundary node it can reach.
+ * 
+ * @author jojo
+ */
+public final class BoundaryDistancesRequest extends ShardRequest<Map<Node<Character>, Map<Node<Character>, Integer>>>
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	Map<Node<Character>, Map<Node<Character>, Integer>> execute(ShardWorker worker)
+	{
+		return worker.getBoundaryDistances();
+	}
+}
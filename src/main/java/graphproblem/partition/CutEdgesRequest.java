@@ -0,0 +1,24 @@
+package graphproblem.partition;
+
+import java.util.List;
+import java.util.Map;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Asks a {@link ShardWorker} for the edges leaving its shard grouped by their
+ * parent node.
+ * 
+ * @author jojo
+ */
+public final class CutEdgesRequest extends ShardRequest<Map<Node<Character>, List<Edge<Character>>>>
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	Map<Node<Character>, List<Edge<Character>>> execute(ShardWorker worker)
+	{
+		return worker.getCutEdges();
+	}
+}
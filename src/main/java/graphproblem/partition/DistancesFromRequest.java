@@ -0,0 +1,49 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import graphproblem.model.Node;
+
+/**
+ * Asks a {@link ShardWorker} for the shortest distances inside its shard from
+ * any of the given start nodes to its boundary nodes and to a target node.
+ * 
+ * @author jojo
+ */
+public final class DistancesFromRequest extends ShardRequest<Map<Node<Character>, Integer>>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final HashMap<Node<Character>, Integer> startDistances;
+	private final Node<Character> target;
+
+	/**
+	 * Creates a new {@link DistancesFromRequest}.
+	 * 
+	 * @param startDistances
+	 *            the start nodes together with their initial distance.
+	 * @param target
+	 *            a node whose distance is returned as well if it belongs to
+	 *            the shard.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code startDistances} is {@code null}</li>
+	 *             <li>{@code target} is {@code null}</li>
+	 *             </ul>
+	 */
+	public DistancesFromRequest(Map<Node<Character>, Integer> startDistances, Node<Character> target)
+	{
+		this.startDistances = new HashMap<Node<Character>, Integer>(rejectIfNull(startDistances, "startDistances"));
+		this.target = rejectIfNull(target, "target");
+	}
+
+	@Override
+	Map<Node<Character>, Integer> execute(ShardWorker worker)
+	{
+		return worker.findBoundaryDistancesFrom(startDistances, target);
+	}
+}
@@ -0,0 +1,39 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.Map;
+
+import graphproblem.model.Node;
+
+/**
+ * Asks a {@link ShardWorker} for the shortest distances inside its shard from
+ * every boundary node to a node of its shard.
+ * 
+ * @author jojo
+ */
+public final class DistancesToRequest extends ShardRequest<Map<Node<Character>, Integer>>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Node<Character> target;
+
+	/**
+	 * Creates a new {@link DistancesToRequest}.
+	 * 
+	 * @param target
+	 *            the destination node.
+	 * @throws IllegalArgumentException
+	 *             if {@code target} is {@code null}.
+	 */
+	public DistancesToRequest(Node<Character> target)
+	{
+		this.target = rejectIfNull(target, "target");
+	}
+
+	@Override
+	Map<Node<Character>, Integer> execute(ShardWorker worker)
+	{
+		return worker.findBoundaryDistancesTo(target);
+	}
+}
@@ -0,0 +1,39 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.List;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Asks a {@link ShardWorker} for the outgoing edges of a node of its shard.
+ * 
+ * @author jojo
+ */
+public final class EdgesRequest extends ShardRequest<List<Edge<Character>>>
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Node<Character> node;
+
+	/**
+	 * Creates a new {@link EdgesRequest}.
+	 * 
+	 * @param node
+	 *            the parent node.
+	 * @throws IllegalArgumentException
+	 *             if {@code node} is {@code null}.
+	 */
+	public EdgesRequest(Node<Character> node)
+	{
+		this.node = rejectIfNull(node, "node");
+	}
+
+	@Override
+	List<Edge<Character>> execute(ShardWorker worker)
+	{
+		return worker.getEdges(node);
+	}
+}
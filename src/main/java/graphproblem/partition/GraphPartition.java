@@ -0,0 +1,171 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Assignment of the nodes of a graph to shards, together with the boundary
+ * nodes of every shard. A node is a boundary node if it is the parent or the
+ * destination of an edge whose endpoints are assigned to different shards.
+ * 
+ * @author jojo
+ */
+public final class GraphPartition
+{
+	private final int shardCount;
+	private final Map<Node<Character>, Integer> shardByNode;
+	private final List<Set<Node<Character>>> nodesByShard;
+	private final List<Set<Node<Character>>> boundaryNodesByShard;
+	private final int edgeCut;
+
+	GraphPartition(int shardCount, Map<Node<Character>, Integer> shardByNode,
+			Map<Node<Character>, List<Edge<Character>>> adjacencyList)
+	{
+		this.shardCount = shardCount;
+		this.shardByNode = Collections.unmodifiableMap(new HashMap<Node<Character>, Integer>(shardByNode));
+
+		List<Set<Node<Character>>> nodes = new ArrayList<Set<Node<Character>>>();
+		List<Set<Node<Character>>> boundaryNodes = new ArrayList<Set<Node<Character>>>();
+		for (int shard = 0; shard < shardCount; shard++)
+		{
+			nodes.add(new LinkedHashSet<Node<Character>>());
+			boundaryNodes.add(new LinkedHashSet<Node<Character>>());
+		}
+
+		for (Map.Entry<Node<Character>, Integer> entry : shardByNode.entrySet())
+		{
+			nodes.get(entry.getValue()).add(entry.getKey());
+		}
+
+		int cut = 0;
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : adjacencyList.entrySet())
+		{
+			int parentShard = shardByNode.get(entry.getKey());
+			for (Edge<Character> singleEdge : entry.getValue())
+			{
+				int childShard = shardByNode.get(singleEdge.getNode());
+				if (parentShard != childShard)
+				{
+					boundaryNodes.get(parentShard).add(entry.getKey());
+					boundaryNodes.get(childShard).add(singleEdge.getNode());
+					cut++;
+				}
+			}
+		}
+
+		for (int shard = 0; shard < shardCount; shard++)
+		{
+			nodes.set(shard, Collections.unmodifiableSet(nodes.get(shard)));
+			boundaryNodes.set(shard, Collections.unmodifiableSet(boundaryNodes.get(shard)));
+		}
+
+		this.nodesByShard = Collections.unmodifiableList(nodes);
+		this.boundaryNodesByShard = Collections.unmodifiableList(boundaryNodes);
+		this.edgeCut = cut;
+	}
+
+	/**
+	 * @return the number of shards.
+	 */
+	public int getShardCount()
+	{
+		return shardCount;
+	}
+
+	/**
+	 * @param node
+	 *            the node.
+	 * @return the shard of {@code node}, or -1 if {@code node} is not part of
+	 *         the partitioned graph.
+	 */
+	public int getShard(Node<Character> node)
+	{
+		Integer shard = shardByNode.get(node);
+		return shard == null ? -1 : shard;
+	}
+
+	/**
+	 * @param shard
+	 *            the shard.
+	 * @return the nodes assigned to {@code shard}.
+	 */
+	public Set<Node<Character>> getNodes(int shard)
+	{
+		return nodesByShard.get(shard);
+	}
+
+	/**
+	 * @param shard
+	 *            the shard.
+	 * @return the boundary nodes of {@code shard}.
+	 */
+	public Set<Node<Character>> getBoundaryNodes(int shard)
+	{
+		return boundaryNodesByShard.get(shard);
+	}
+
+	/**
+	 * Copies the edges which the worker of {@code shard} owns out of the
+	 * whole graph, which therefore has to be available in this JVM. The
+	 * returned {@link ShardEdges} can be serialized to a worker elsewhere.
+	 *
+	 * @param shard
+	 *            the shard.
+	 * @param adjacencyList
+	 *            the edges of the partitioned graph grouped by their parent
+	 *            node.
+	 * @return the {@link ShardEdges} of {@code shard}, which contain the
+	 *         outgoing edges of its nodes only.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code shard} is not a shard of this partition</li>
+	 *             <li>{@code adjacencyList} is {@code null}</li>
+	 *             </ul>
+	 */
+	public ShardEdges extractShard(int shard, Map<Node<Character>, List<Edge<Character>>> adjacencyList)
+	{
+		if (shard < 0 || shard >= shardCount)
+		{
+			throw new IllegalArgumentException("shard has to be between zero and the shard count.");
+		}
+		rejectIfNull(adjacencyList, "adjacencyList");
+
+		Map<Node<Character>, List<Edge<Character>>> edgesByNode = new HashMap<Node<Character>, List<Edge<Character>>>();
+		for (Node<Character> node : nodesByShard.get(shard))
+		{
+			List<Edge<Character>> edges = adjacencyList.get(node);
+			if (edges != null)
+			{
+				edgesByNode.put(node, edges);
+			}
+		}
+
+		return new ShardEdges(shard, nodesByShard.get(shard), boundaryNodesByShard.get(shard), edgesByNode);
+	}
+
+	/**
+	 * @return the number of edges whose endpoints are assigned to different
+	 *         shards.
+	 */
+	public int getEdgeCut()
+	{
+		return edgeCut;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "GraphPartition [shardCount=" + shardCount + ", edgeCut=" + edgeCut + "]";
+	}
+}
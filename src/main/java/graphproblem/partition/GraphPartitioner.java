@@ -0,0 +1,229 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Splits a graph into shards with a small edge cut using size constrained
+ * label propagation.
+ * 
+ * <p>
+ * Nodes are first assigned to shards in contiguous blocks of a depth first
+ * traversal, which keeps neighbouring nodes together. Afterwards every node
+ * repeatedly moves to the shard most of its neighbours belong to, as long as
+ * that shard does not grow beyond its capacity, until no node moves any more
+ * or the iteration limit is reached.
+ * </p>
+ * 
+ * <p>
+ * Partitioning is not distributed: {@link #partition(Map)} needs the whole
+ * graph in one JVM and additionally builds an undirected copy of it with a
+ * map entry for both directions of every edge. Only the workers are limited
+ * to their own shard.
+ * </p>
+ * 
+ * @author jojo
+ */
+public class GraphPartitioner
+{
+	private static final int DEFAULT_MAX_ITERATIONS = 20;
+	private static final int DEFAULT_IMBALANCE_PERCENT = 10;
+
+	private final int shardCount;
+	private final int maxIterations;
+	private final int imbalancePercent;
+
+	/**
+	 * Creates a new {@link GraphPartitioner} which allows shards to be 10% larger
+	 * than the average shard.
+	 * 
+	 * @param shardCount
+	 *            the number of shards.
+	 * @throws IllegalArgumentException
+	 *             if {@code shardCount} is less than or equal to zero.
+	 */
+	public GraphPartitioner(int shardCount)
+	{
+		this(shardCount, DEFAULT_MAX_ITERATIONS, DEFAULT_IMBALANCE_PERCENT);
+	}
+
+	/**
+	 * Creates a new {@link GraphPartitioner}.
+	 * 
+	 * @param shardCount
+	 *            the number of shards.
+	 * @param maxIterations
+	 *            the maximum number of label propagation rounds.
+	 * @param imbalancePercent
+	 *            how many percent a shard may be larger than the average shard.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code shardCount} is less than or equal to zero</li>
+	 *             <li>{@code maxIterations} is less than or equal to zero</li>
+	 *             <li>{@code imbalancePercent} is less than zero</li>
+	 *             </ul>
+	 */
+	public GraphPartitioner(int shardCount, int maxIterations, int imbalancePercent)
+	{
+		this.shardCount = rejectIfLessThanOrEqualZero(shardCount, "shardCount");
+		this.maxIterations = rejectIfLessThanOrEqualZero(maxIterations, "maxIterations");
+		if (imbalancePercent < 0)
+		{
+			throw new IllegalArgumentException("imbalancePercent cannot be less than zero.");
+		}
+		this.imbalancePercent = imbalancePercent;
+	}
+
+	/**
+	 * Partitions the given graph, which has to fit into this JVM together
+	 * with an undirected copy of it.
+	 * 
+	 * @param adjacencyList
+	 *            the edges of the graph grouped by their parent node.
+	 * @return the {@link GraphPartition}.
+	 * @throws IllegalArgumentException
+	 *             if {@code adjacencyList} is {@code null}.
+	 */
+	public GraphPartition partition(Map<Node<Character>, List<Edge<Character>>> adjacencyList)
+	{
+		rejectIfNull(adjacencyList, "adjacencyList");
+
+		Map<Node<Character>, Map<Node<Character>, Integer>> neighbours = toUndirectedNeighbours(adjacencyList);
+		List<Node<Character>> order = depthFirstOrder(neighbours);
+
+		int nodeCount = order.size();
+		int blockSize = Math.max(1, (nodeCount + shardCount - 1) / shardCount);
+		int capacity = Math.max(blockSize,
+				(int) Math.ceil(nodeCount * (100.0 + imbalancePercent) / (100.0 * shardCount)));
+
+		Map<Node<Character>, Integer> shardByNode = new HashMap<Node<Character>, Integer>();
+		int[] shardSizes = new int[shardCount];
+		for (int position = 0; position < nodeCount; position++)
+		{
+			int shard = position / blockSize;
+			shardByNode.put(order.get(position), shard);
+			shardSizes[shard]++;
+		}
+
+		int[] weightByShard = new int[shardCount];
+		for (int iteration = 0; iteration < maxIterations; iteration++)
+		{
+			int moves = 0;
+			for (Node<Character> node : order)
+			{
+				int currentShard = shardByNode.get(node);
+				for (Map.Entry<Node<Character>, Integer> neighbour : neighbours.get(node).entrySet())
+				{
+					weightByShard[shardByNode.get(neighbour.getKey())] += neighbour.getValue();
+				}
+
+				int bestShard = currentShard;
+				for (int shard = 0; shard < shardCount; shard++)
+				{
+					if (weightByShard[shard] > weightByShard[bestShard] && shardSizes[shard] < capacity)
+					{
+						bestShard = shard;
+					}
+					weightByShard[shard] = 0;
+				}
+
+				if (bestShard != currentShard)
+				{
+					shardByNode.put(node, bestShard);
+					shardSizes[currentShard]--;
+					shardSizes[bestShard]++;
+					moves++;
+				}
+			}
+
+			if (moves == 0)
+			{
+				break;
+			}
+		}
+
+		return new GraphPartition(shardCount, shardByNode, adjacencyList);
+	}
+
+	private static Map<Node<Character>, Map<Node<Character>, Integer>> toUndirectedNeighbours(
+			Map<Node<Character>, List<Edge<Character>>> adjacencyList)
+	{
+		Map<Node<Character>, Map<Node<Character>, Integer>> neighbours;
+		neighbours = new LinkedHashMap<Node<Character>, Map<Node<Character>, Integer>>();
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : adjacencyList.entrySet())
+		{
+			for (Edge<Character> singleEdge : entry.getValue())
+			{
+				addNeighbour(neighbours, entry.getKey(), singleEdge.getNode());
+				addNeighbour(neighbours, singleEdge.getNode(), entry.getKey());
+			}
+
+			if (!neighbours.containsKey(entry.getKey()))
+			{
+				neighbours.put(entry.getKey(), new HashMap<Node<Character>, Integer>());
+			}
+		}
+
+		return neighbours;
+	}
+
+	private static void addNeighbour(Map<Node<Character>, Map<Node<Character>, Integer>> neighbours,
+			Node<Character> node, Node<Character> neighbour)
+	{
+		Map<Node<Character>, Integer> weights = neighbours.get(node);
+		if (weights == null)
+		{
+			weights = new HashMap<Node<Character>, Integer>();
+			neighbours.put(node, weights);
+		}
+
+		Integer weight = weights.get(neighbour);
+		weights.put(neighbour, weight == null ? 1 : weight + 1);
+	}
+
+	private static List<Node<Character>> depthFirstOrder(
+			Map<Node<Character>, Map<Node<Character>, Integer>> neighbours)
+	{
+		List<Node<Character>> order = new ArrayList<Node<Character>>(neighbours.size());
+		Set<Node<Character>> visited = new HashSet<Node<Character>>();
+		Deque<Node<Character>> stack = new ArrayDeque<Node<Character>>();
+
+		for (Node<Character> root : neighbours.keySet())
+		{
+			stack.push(root);
+			while (!stack.isEmpty())
+			{
+				Node<Character> node = stack.pop();
+				if (!visited.add(node))
+				{
+					continue;
+				}
+
+				order.add(node);
+				for (Node<Character> neighbour : neighbours.get(node).keySet())
+				{
+					if (!visited.contains(neighbour))
+					{
+						stack.push(neighbour);
+					}
+				}
+			}
+		}
+
+		return order;
+	}
+}
@@ -0,0 +1,63 @@
+package graphproblem.partition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link ShardTransport} which runs every {@link ShardWorker} in the current
+ * JVM on its own thread. Requests to one worker are executed one after the
+ * other, requests to different workers concurrently.
+ * 
+ * @author jojo
+ */
+final class LocalShardTransport implements ShardTransport
+{
+	private final List<ShardWorker> workers;
+	private final List<ExecutorService> mailboxes;
+
+	LocalShardTransport(List<ShardWorker> workers)
+	{
+		this.workers = new ArrayList<ShardWorker>(workers);
+		this.mailboxes = new ArrayList<ExecutorService>(workers.size());
+		for (final ShardWorker worker : workers)
+		{
+			mailboxes.add(Executors.newSingleThreadExecutor(new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, "shard-worker-" + worker.getShard());
+					thread.setDaemon(true);
+					return thread;
+				}
+			}));
+		}
+	}
+
+	@Override
+	public <T> Future<T> send(final int shard, final ShardRequest<T> request)
+	{
+		return mailboxes.get(shard).submit(new Callable<T>()
+		{
+			@Override
+			public T call()
+			{
+				return workers.get(shard).handle(request);
+			}
+		});
+	}
+
+	@Override
+	public void close()
+	{
+		for (ExecutorService mailbox : mailboxes)
+		{
+			mailbox.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package graphproblem.partition;
+
+import graphproblem.model.Node;
+
+/**
+ * Priority queue entry of the shortest path searches in this package.
+ * 
+ * @author jojo
+ */
+final class NodeDistance implements Comparable<NodeDistance>
+{
+	final Node<Character> node;
+	final int distance;
+
+	NodeDistance(Node<Character> node, int distance)
+	{
+		this.node = node;
+		this.distance = distance;
+	}
+
+	@Override
+	public int compareTo(NodeDistance other)
+	{
+		return Integer.compare(distance, other.distance);
+	}
+}
@@ -0,0 +1,91 @@
+package graphproblem.partition;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * The part of a graph which a single {@link ShardWorker} needs: the nodes of
+ * one shard, its boundary nodes and the outgoing edges of its nodes, which
+ * are either inner edges or cut edges leaving the shard.
+ *
+ * <p>
+ * Instances are immutable copies, see
+ * {@link GraphPartition#extractShard(int, Map)}. They are serializable, so
+ * they can be sent to a worker in another process.
+ * </p>
+ *
+ * @author jojo
+ */
+public final class ShardEdges implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final int shard;
+	private final Set<Node<Character>> nodes;
+	private final Set<Node<Character>> boundaryNodes;
+	private final Map<Node<Character>, List<Edge<Character>>> edgesByNode;
+
+	ShardEdges(int shard, Set<Node<Character>> nodes, Set<Node<Character>> boundaryNodes,
+			Map<Node<Character>, List<Edge<Character>>> edgesByNode)
+	{
+		this.shard = shard;
+		this.nodes = Collections.unmodifiableSet(new LinkedHashSet<Node<Character>>(nodes));
+		this.boundaryNodes = Collections.unmodifiableSet(new LinkedHashSet<Node<Character>>(boundaryNodes));
+
+		Map<Node<Character>, List<Edge<Character>>> copy = new HashMap<Node<Character>, List<Edge<Character>>>();
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : edgesByNode.entrySet())
+		{
+			copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<Edge<Character>>(entry.getValue())));
+		}
+		this.edgesByNode = Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * @return the shard.
+	 */
+	public int getShard()
+	{
+		return shard;
+	}
+
+	/**
+	 * @return the nodes assigned to the shard.
+	 */
+	public Set<Node<Character>> getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * @return the boundary nodes of the shard.
+	 */
+	public Set<Node<Character>> getBoundaryNodes()
+	{
+		return boundaryNodes;
+	}
+
+	/**
+	 * @return the outgoing edges of the nodes of the shard grouped by their
+	 *         parent node.
+	 */
+	public Map<Node<Character>, List<Edge<Character>>> getEdgesByNode()
+	{
+		return edgesByNode;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ShardEdges [shard=" + shard + ", nodes=" + nodes.size() + ", boundaryNodes=" + boundaryNodes.size()
+				+ "]";
+	}
+}
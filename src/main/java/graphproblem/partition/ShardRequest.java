@@ -0,0 +1,41 @@
+package graphproblem.partition;
+
+import java.io.Serializable;
+
+/**
+ * A message which is sent to a {@link ShardWorker} through a
+ * {@link ShardTransport} and executed by {@link ShardWorker#handle(ShardRequest)}
+ * on the thread of that worker.
+ * 
+ * <p>
+ * Requests and their responses are serializable, so a {@link ShardTransport}
+ * may deliver them to a worker in another process, which answers them with
+ * {@link ShardWorker#handle(ShardRequest)}. The protocol consists of
+ * {@link BoundaryDistancesRequest}, {@link CutEdgesRequest},
+ * {@link EdgesRequest}, {@link DistancesFromRequest} and
+ * {@link DistancesToRequest}, further requests cannot be defined outside this
+ * package. Requests carry copies of their arguments, so a request does not
+ * share any state with its sender.
+ * </p>
+ * 
+ * @param <T>
+ *            the type of the response.
+ * @author jojo
+ */
+public abstract class ShardRequest<T> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	ShardRequest()
+	{
+	}
+
+	/**
+	 * Executes the request.
+	 * 
+	 * @param worker
+	 *            the receiving {@link ShardWorker}.
+	 * @return the response, which is sent back to the caller.
+	 */
+	abstract T execute(ShardWorker worker);
+}
@@ -0,0 +1,36 @@
+package graphproblem.partition;
+
+import java.util.concurrent.Future;
+
+/**
+ * Delivers {@link ShardRequest}s to the workers owning the shards of a
+ * {@link GraphPartition}.
+ * 
+ * <p>
+ * The worker of a shard is created from {@link GraphPartition#extractShard(int,
+ * java.util.Map)}, wherever the transport runs it, and answers each request
+ * with {@link ShardWorker#handle(ShardRequest)}. Requests to the same shard
+ * have to be handled one after the other.
+ * </p>
+ * 
+ * @author jojo
+ */
+public interface ShardTransport
+{
+	/**
+	 * Sends {@code request} to the worker of {@code shard}.
+	 * 
+	 * @param shard
+	 *            the receiving shard.
+	 * @param request
+	 *            the {@link ShardRequest}.
+	 * @return the {@link Future} response.
+	 */
+	<T> Future<T> send(int shard, ShardRequest<T> request);
+
+	/**
+	 * Stops all workers. Requests which have not been executed yet are
+	 * dropped.
+	 */
+	void close();
+}
@@ -0,0 +1,249 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Owns the edges of a single shard. Searches executed by a worker only follow
+ * edges between nodes of its own shard, edges leaving the shard are handed to
+ * the caller as cut edges.
+ *
+ * <p>
+ * A worker is built from the {@link ShardEdges} of its shard alone and answers
+ * the {@link ShardRequest}s delivered by a {@link ShardTransport} through
+ * {@link #handle(ShardRequest)}. Every response is a copy which does not share
+ * any state with the worker.
+ * </p>
+ *
+ * @author jojo
+ */
+public final class ShardWorker
+{
+	private final int shard;
+	private final Set<Node<Character>> boundaryNodes;
+	private final Map<Node<Character>, List<Edge<Character>>> edgesByNode;
+	private final Map<Node<Character>, List<Edge<Character>>> innerEdgesByNode;
+	private final Map<Node<Character>, List<Edge<Character>>> reversedInnerEdgesByNode;
+	private final Map<Node<Character>, List<Edge<Character>>> cutEdgesByNode;
+	private final Map<Node<Character>, Map<Node<Character>, Integer>> boundaryDistances;
+
+	/**
+	 * Creates the worker of a shard and computes its boundary distance table.
+	 *
+	 * @param shardEdges
+	 *            the {@link ShardEdges} of the shard.
+	 * @throws IllegalArgumentException
+	 *             if {@code shardEdges} is {@code null}.
+	 */
+	public ShardWorker(ShardEdges shardEdges)
+	{
+		rejectIfNull(shardEdges, "shardEdges");
+
+		this.shard = shardEdges.getShard();
+		this.boundaryNodes = shardEdges.getBoundaryNodes();
+		this.edgesByNode = shardEdges.getEdgesByNode();
+		this.innerEdgesByNode = new HashMap<Node<Character>, List<Edge<Character>>>();
+		this.reversedInnerEdgesByNode = new HashMap<Node<Character>, List<Edge<Character>>>();
+		this.cutEdgesByNode = new HashMap<Node<Character>, List<Edge<Character>>>();
+
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : edgesByNode.entrySet())
+		{
+			Node<Character> node = entry.getKey();
+			for (Edge<Character> singleEdge : entry.getValue())
+			{
+				if (shardEdges.getNodes().contains(singleEdge.getNode()))
+				{
+					add(innerEdgesByNode, node, singleEdge);
+					add(reversedInnerEdgesByNode, singleEdge.getNode(),
+							new Edge<Character>(node, singleEdge.getDistance()));
+				}
+				else
+				{
+					add(cutEdgesByNode, node, singleEdge);
+				}
+			}
+		}
+
+		this.boundaryDistances = new HashMap<Node<Character>, Map<Node<Character>, Integer>>();
+		for (Node<Character> boundaryNode : boundaryNodes)
+		{
+			boundaryDistances.put(boundaryNode, retainBoundaryNodes(
+					findDistances(innerEdgesByNode, Collections.singletonMap(boundaryNode, 0)), null));
+		}
+	}
+
+	private static void add(Map<Node<Character>, List<Edge<Character>>> edgesByNode, Node<Character> node,
+			Edge<Character> edge)
+	{
+		List<Edge<Character>> edges = edgesByNode.get(node);
+		if (edges == null)
+		{
+			edges = new ArrayList<Edge<Character>>();
+			edgesByNode.put(node, edges);
+		}
+
+		edges.add(edge);
+	}
+
+	/**
+	 * @return the shard of this worker.
+	 */
+	public int getShard()
+	{
+		return shard;
+	}
+
+	/**
+	 * Executes {@code request} on this worker. A worker is not thread safe
+	 * for callers, so a {@link ShardTransport} has to deliver the requests of
+	 * one worker one after the other.
+	 *
+	 * @param request
+	 *            the {@link ShardRequest}.
+	 * @return the response, which does not share any state with this worker.
+	 * @throws IllegalArgumentException
+	 *             if {@code request} is {@code null}.
+	 */
+	public <T> T handle(ShardRequest<T> request)
+	{
+		return rejectIfNull(request, "request").execute(this);
+	}
+
+	/**
+	 * @return the outgoing edges of {@code node}, which is empty if
+	 *         {@code node} has no edges or does not belong to this shard.
+	 */
+	List<Edge<Character>> getEdges(Node<Character> node)
+	{
+		List<Edge<Character>> edges = edgesByNode.get(node);
+		return edges == null ? new ArrayList<Edge<Character>>() : new ArrayList<Edge<Character>>(edges);
+	}
+
+	/**
+	 * @return the shortest distance inside this shard from every boundary node
+	 *         to every boundary node it can reach.
+	 */
+	Map<Node<Character>, Map<Node<Character>, Integer>> getBoundaryDistances()
+	{
+		Map<Node<Character>, Map<Node<Character>, Integer>> copy;
+		copy = new HashMap<Node<Character>, Map<Node<Character>, Integer>>();
+		for (Map.Entry<Node<Character>, Map<Node<Character>, Integer>> entry : boundaryDistances.entrySet())
+		{
+			copy.put(entry.getKey(), new HashMap<Node<Character>, Integer>(entry.getValue()));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * @return the edges leaving this shard grouped by their parent node.
+	 */
+	Map<Node<Character>, List<Edge<Character>>> getCutEdges()
+	{
+		Map<Node<Character>, List<Edge<Character>>> copy = new HashMap<Node<Character>, List<Edge<Character>>>();
+		for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : cutEdgesByNode.entrySet())
+		{
+			copy.put(entry.getKey(), new ArrayList<Edge<Character>>(entry.getValue()));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Finds the shortest distances inside this shard from any of the given
+	 * start nodes.
+	 *
+	 * @param startDistances
+	 *            the start nodes together with their initial distance.
+	 * @param target
+	 *            a node whose distance is returned as well if it belongs to
+	 *            this shard.
+	 * @return the distances of the reachable boundary nodes and of
+	 *         {@code target}.
+	 */
+	Map<Node<Character>, Integer> findBoundaryDistancesFrom(Map<Node<Character>, Integer> startDistances,
+			Node<Character> target)
+	{
+		return retainBoundaryNodes(findDistances(innerEdgesByNode, startDistances), target);
+	}
+
+	/**
+	 * Finds the shortest distances inside this shard from every boundary node
+	 * to {@code target}.
+	 *
+	 * @param target
+	 *            the destination node.
+	 * @return the distances of the boundary nodes which can reach
+	 *         {@code target}.
+	 */
+	Map<Node<Character>, Integer> findBoundaryDistancesTo(Node<Character> target)
+	{
+		return retainBoundaryNodes(findDistances(reversedInnerEdgesByNode, Collections.singletonMap(target, 0)),
+				null);
+	}
+
+	private Map<Node<Character>, Integer> retainBoundaryNodes(Map<Node<Character>, Integer> distances,
+			Node<Character> target)
+	{
+		Map<Node<Character>, Integer> retained = new HashMap<Node<Character>, Integer>();
+		for (Map.Entry<Node<Character>, Integer> entry : distances.entrySet())
+		{
+			if (boundaryNodes.contains(entry.getKey()) || entry.getKey().equals(target))
+			{
+				retained.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return retained;
+	}
+
+	private static Map<Node<Character>, Integer> findDistances(Map<Node<Character>, List<Edge<Character>>> edgesByNode,
+			Map<Node<Character>, Integer> startDistances)
+	{
+		Map<Node<Character>, Integer> distances = new HashMap<Node<Character>, Integer>(startDistances);
+		Queue<NodeDistance> queue = new PriorityQueue<NodeDistance>();
+		for (Map.Entry<Node<Character>, Integer> entry : startDistances.entrySet())
+		{
+			queue.add(new NodeDistance(entry.getKey(), entry.getValue()));
+		}
+
+		while (!queue.isEmpty())
+		{
+			NodeDistance current = queue.remove();
+			if (current.distance > distances.get(current.node))
+			{
+				continue;
+			}
+
+			List<Edge<Character>> edges = edgesByNode.get(current.node);
+			if (edges == null)
+			{
+				continue;
+			}
+
+			for (Edge<Character> singleEdge : edges)
+			{
+				int distance = current.distance + singleEdge.getDistance();
+				Integer previousDistance = distances.get(singleEdge.getNode());
+				if (previousDistance == null || distance < previousDistance)
+				{
+					distances.put(singleEdge.getNode(), distance);
+					queue.add(new NodeDistance(singleEdge.getNode(), distance));
+				}
+			}
+		}
+
+		return distances;
+	}
+}
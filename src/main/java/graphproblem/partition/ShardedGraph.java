@@ -0,0 +1,369 @@
+package graphproblem.partition;
+
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Answers queries on a graph whose shards are owned by separate workers.
+ *
+ * <p>
+ * On start up the coordinator collects the boundary distance table and the cut
+ * edges of every shard and combines them into an overlay graph of the boundary
+ * nodes. A shortest distance query asks the shards of the start and
+ * destination node for their local distances to their boundary nodes and
+ * searches the overlay graph in between, so no worker ever needs more than its
+ * own shard.
+ * </p>
+ *
+ * @author jojo
+ */
+public class ShardedGraph
+{
+	private final GraphPartition partition;
+	private final ShardTransport transport;
+	private final Map<Node<Character>, Map<Node<Character>, Integer>> overlayEdges;
+
+	private ShardedGraph(GraphPartition partition, ShardTransport transport)
+	{
+		this.partition = partition;
+		this.transport = transport;
+		this.overlayEdges = new HashMap<Node<Character>, Map<Node<Character>, Integer>>();
+
+		List<Future<Map<Node<Character>, Map<Node<Character>, Integer>>>> boundaryDistances;
+		boundaryDistances = new ArrayList<Future<Map<Node<Character>, Map<Node<Character>, Integer>>>>();
+		List<Future<Map<Node<Character>, List<Edge<Character>>>>> cutEdges;
+		cutEdges = new ArrayList<Future<Map<Node<Character>, List<Edge<Character>>>>>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			boundaryDistances.add(transport.send(shard, new BoundaryDistancesRequest()));
+			cutEdges.add(transport.send(shard, new CutEdgesRequest()));
+		}
+
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			for (Map.Entry<Node<Character>, Map<Node<Character>, Integer>> entry : await(boundaryDistances.get(shard))
+					.entrySet())
+			{
+				for (Map.Entry<Node<Character>, Integer> distance : entry.getValue().entrySet())
+				{
+					addOverlayEdge(entry.getKey(), distance.getKey(), distance.getValue());
+				}
+			}
+
+			for (Map.Entry<Node<Character>, List<Edge<Character>>> entry : await(cutEdges.get(shard)).entrySet())
+			{
+				for (Edge<Character> singleEdge : entry.getValue())
+				{
+					addOverlayEdge(entry.getKey(), singleEdge.getNode(), singleEdge.getDistance());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Partitions the given graph and starts one in-process worker per shard.
+	 * Every worker only receives the {@link ShardEdges} of its own shard, but
+	 * the whole graph has to fit into this JVM for
+	 * {@link GraphPartitioner#partition(Map)}.
+	 *
+	 * @param adjacencyList
+	 *            the edges of the graph grouped by their parent node.
+	 * @param partitioner
+	 *            the {@link GraphPartitioner}.
+	 * @return the started {@link ShardedGraph}, which has to be
+	 *         {@link #close() closed} after use.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code adjacencyList} is {@code null}</li>
+	 *             <li>{@code partitioner} is {@code null}</li>
+	 *             </ul>
+	 */
+	public static ShardedGraph start(Map<Node<Character>, List<Edge<Character>>> adjacencyList,
+			GraphPartitioner partitioner)
+	{
+		rejectIfNull(adjacencyList, "adjacencyList");
+		rejectIfNull(partitioner, "partitioner");
+
+		GraphPartition partition = partitioner.partition(adjacencyList);
+		List<ShardWorker> workers = new ArrayList<ShardWorker>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			workers.add(new ShardWorker(partition.extractShard(shard, adjacencyList)));
+		}
+
+		return new ShardedGraph(partition, new LocalShardTransport(workers));
+	}
+
+	/**
+	 * Connects to workers which have already been started by
+	 * {@code transport} from the {@link ShardEdges} of {@code partition}, for
+	 * example in other processes. The coordinator then only keeps
+	 * {@code partition} and the overlay graph of the boundary nodes, while
+	 * the {@link ShardRequest}s and their responses are serialized by the
+	 * transport.
+	 *
+	 * @param partition
+	 *            the {@link GraphPartition} of the graph.
+	 * @param transport
+	 *            the {@link ShardTransport} reaching one worker per shard.
+	 * @return the connected {@link ShardedGraph}, which has to be
+	 *         {@link #close() closed} after use.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code partition} is {@code null}</li>
+	 *             <li>{@code transport} is {@code null}</li>
+	 *             </ul>
+	 */
+	public static ShardedGraph connect(GraphPartition partition, ShardTransport transport)
+	{
+		rejectIfNull(partition, "partition");
+		rejectIfNull(transport, "transport");
+
+		return new ShardedGraph(partition, transport);
+	}
+
+	private void addOverlayEdge(Node<Character> from, Node<Character> to, int distance)
+	{
+		Map<Node<Character>, Integer> edges = overlayEdges.get(from);
+		if (edges == null)
+		{
+			edges = new HashMap<Node<Character>, Integer>();
+			overlayEdges.put(from, edges);
+		}
+
+		Integer previousDistance = edges.get(to);
+		if (previousDistance == null || distance < previousDistance)
+		{
+			edges.put(to, distance);
+		}
+	}
+
+	/**
+	 * @return the {@link GraphPartition} of the graph.
+	 */
+	public GraphPartition getPartition()
+	{
+		return partition;
+	}
+
+	/**
+	 * Returns the distance of the route through the given {@code nodes}. Every
+	 * hop is resolved by the shard owning its parent node.
+	 *
+	 * @param nodes
+	 *            the {@code List} of nodes.
+	 * @return the distance of the route, else returns -1 if no route is
+	 *         possible.
+	 */
+	public int findDistanceWithExactNodeStop(List<Node<Character>> nodes)
+	{
+		if (nodes == null || nodes.size() < 2 || nodes.contains(null))
+		{
+			return -1;
+		}
+
+		List<Future<List<Edge<Character>>>> edges = new ArrayList<Future<List<Edge<Character>>>>();
+		for (int count = 0; count < nodes.size() - 1; count++)
+		{
+			int shard = partition.getShard(nodes.get(count));
+			if (shard < 0)
+			{
+				return -1;
+			}
+			edges.add(transport.send(shard, new EdgesRequest(nodes.get(count))));
+		}
+
+		int distance = 0;
+		for (int count = 0; count < edges.size(); count++)
+		{
+			Edge<Character> hop = null;
+			for (Edge<Character> singleEdge : await(edges.get(count)))
+			{
+				if (nodes.get(count + 1).equals(singleEdge.getNode()))
+				{
+					hop = singleEdge;
+					break;
+				}
+			}
+
+			if (hop == null)
+			{
+				return -1;
+			}
+			distance += hop.getDistance();
+		}
+
+		return distance;
+	}
+
+	/**
+	 * Returns the shortest distance of a trip with at least one edge from
+	 * {@code node1} to {@code node2}.
+	 *
+	 * @param node1
+	 *            the starting node.
+	 * @param node2
+	 *            the ending node.
+	 * @return the shortest distance between {@code node1} and {@code node2} if
+	 *         they are in a connected graph, else returns -1.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node1} is {@code null}</li>
+	 *             <li>{@code node2} is {@code null}</li>
+	 *             </ul>
+	 */
+	public int findShortestPathBasedOnDistance(Node<Character> node1, Node<Character> node2)
+	{
+		rejectIfNull(node1, "node1");
+		rejectIfNull(node2, "node2");
+
+		int sourceShard = partition.getShard(node1);
+		int targetShard = partition.getShard(node2);
+		if (sourceShard < 0 || targetShard < 0)
+		{
+			return -1;
+		}
+
+		Future<Map<Node<Character>, Integer>> distancesToTarget = transport.send(targetShard,
+				new DistancesToRequest(node2));
+
+		// the trip has to contain at least one edge, so the neighbours of
+		// node1 are the start nodes, grouped by the shard owning them.
+		List<Map<Node<Character>, Integer>> startDistancesByShard = new ArrayList<Map<Node<Character>, Integer>>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			startDistancesByShard.add(new HashMap<Node<Character>, Integer>());
+		}
+
+		for (Edge<Character> singleEdge : await(transport.send(sourceShard, new EdgesRequest(node1))))
+		{
+			Map<Node<Character>, Integer> startDistances = startDistancesByShard
+					.get(partition.getShard(singleEdge.getNode()));
+			Integer previousDistance = startDistances.get(singleEdge.getNode());
+			if (previousDistance == null || singleEdge.getDistance() < previousDistance)
+			{
+				startDistances.put(singleEdge.getNode(), singleEdge.getDistance());
+			}
+		}
+
+		List<Future<Map<Node<Character>, Integer>>> distancesFromStart;
+		distancesFromStart = new ArrayList<Future<Map<Node<Character>, Integer>>>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			if (!startDistancesByShard.get(shard).isEmpty())
+			{
+				distancesFromStart.add(
+						transport.send(shard, new DistancesFromRequest(startDistancesByShard.get(shard), node2)));
+			}
+		}
+
+		Map<Node<Character>, Integer> distances = new HashMap<Node<Character>, Integer>();
+		for (Future<Map<Node<Character>, Integer>> future : distancesFromStart)
+		{
+			for (Map.Entry<Node<Character>, Integer> entry : await(future).entrySet())
+			{
+				Integer previousDistance = distances.get(entry.getKey());
+				if (previousDistance == null || entry.getValue() < previousDistance)
+				{
+					distances.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		return searchOverlay(distances, node2, await(distancesToTarget));
+	}
+
+	private int searchOverlay(Map<Node<Character>, Integer> distances, Node<Character> target,
+			Map<Node<Character>, Integer> distancesToTarget)
+	{
+		int shortestDistance = distances.containsKey(target) ? distances.get(target) : Integer.MAX_VALUE;
+
+		Queue<NodeDistance> queue = new PriorityQueue<NodeDistance>();
+		for (Map.Entry<Node<Character>, Integer> entry : distances.entrySet())
+		{
+			queue.add(new NodeDistance(entry.getKey(), entry.getValue()));
+		}
+
+		while (!queue.isEmpty())
+		{
+			NodeDistance current = queue.remove();
+			if (current.distance >= shortestDistance)
+			{
+				break;
+			}
+
+			if (current.distance > distances.get(current.node))
+			{
+				continue;
+			}
+
+			Integer remainingDistance = distancesToTarget.get(current.node);
+			if (remainingDistance != null)
+			{
+				shortestDistance = Math.min(shortestDistance, current.distance + remainingDistance);
+			}
+
+			Map<Node<Character>, Integer> edges = overlayEdges.get(current.node);
+			if (edges == null)
+			{
+				continue;
+			}
+
+			for (Map.Entry<Node<Character>, Integer> singleEdge : edges.entrySet())
+			{
+				int distance = current.distance + singleEdge.getValue();
+				Integer previousDistance = distances.get(singleEdge.getKey());
+				if (previousDistance == null || distance < previousDistance)
+				{
+					distances.put(singleEdge.getKey(), distance);
+					queue.add(new NodeDistance(singleEdge.getKey(), distance));
+				}
+			}
+		}
+
+		return shortestDistance == Integer.MAX_VALUE ? -1 : shortestDistance;
+	}
+
+	/**
+	 * Stops all workers.
+	 */
+	public void close()
+	{
+		transport.close();
+	}
+
+	private static <T> T await(Future<T> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for a shard.", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("shard request failed.", e.getCause());
+		}
+	}
+}
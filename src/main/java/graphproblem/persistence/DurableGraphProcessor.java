@@ -0,0 +1,314 @@
+package graphproblem.persistence;
+
+import static graphproblem.util.ArgumentChecker.rejectIfLessThanOrEqualZero;
+import static graphproblem.util.ArgumentChecker.rejectIfNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import graphproblem.logic.GraphProcessor;
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * {@link GraphProcessor} which survives restarts by logging every added edge
+ * to a write-ahead log in its directory.
+ *
+ * <p>
+ * {@link #addEdge(Node, Edge)} returns once the edge has been written to the
+ * log and forced as required by the {@link FsyncPolicy}. Edges added by
+ * concurrent callers are committed together. After every
+ * {@code snapshotInterval} edges a snapshot of all edges is written by a
+ * background thread, after which the log segments it covers are deleted.
+ * Snapshots are taken from a separate append-only copy of the edges, so they
+ * neither block queries nor further edges while being written.
+ * </p>
+ *
+ * <p>
+ * {@link #open(Path, FsyncPolicy, int)} recovers the graph by loading the
+ * latest snapshot and replaying the log records written after it. Like
+ * {@link GraphProcessor} the queries must not run concurrently with
+ * {@link #addEdge(Node, Edge)}.
+ * </p>
+ *
+ * @author jojo
+ */
+public class DurableGraphProcessor extends GraphProcessor implements Closeable
+{
+	private static final int DEFAULT_SNAPSHOT_INTERVAL = 100000;
+
+	private final Path directory;
+	private final int snapshotInterval;
+	private final ExecutorService snapshotExecutor;
+	private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+	private final Object snapshotLock = new Object();
+	private EdgeLog log;
+	private char[] parents = new char[16];
+	private char[] children = new char[16];
+	private int[] distances = new int[16];
+	private int edgeCount;
+	private long edgesSinceSnapshot;
+	private volatile IOException snapshotFailure;
+
+	private DurableGraphProcessor(Path directory, int snapshotInterval)
+	{
+		this.directory = directory;
+		this.snapshotInterval = snapshotInterval;
+		this.snapshotExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "graph-snapshot");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Opens the graph stored in {@code directory} and writes a snapshot after
+	 * every 100000 edges.
+	 *
+	 * @param directory
+	 *            the directory of the log and the snapshots, which is created
+	 *            if it does not exist.
+	 * @param policy
+	 *            the {@link FsyncPolicy} of the log.
+	 * @return the recovered {@link DurableGraphProcessor}, which has to be
+	 *         {@link #close() closed} after use.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code directory} is {@code null}</li>
+	 *             <li>{@code policy} is {@code null}</li>
+	 *             </ul>
+	 * @throws IOException
+	 *             if the graph cannot be recovered.
+	 */
+	public static DurableGraphProcessor open(Path directory, FsyncPolicy policy) throws IOException
+	{
+		return open(directory, policy, DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	/**
+	 * Opens the graph stored in {@code directory}.
+	 *
+	 * @param directory
+	 *            the directory of the log and the snapshots, which is created
+	 *            if it does not exist.
+	 * @param policy
+	 *            the {@link FsyncPolicy} of the log.
+	 * @param snapshotInterval
+	 *            the number of added edges after which a snapshot is written
+	 *            in the background.
+	 * @return the recovered {@link DurableGraphProcessor}, which has to be
+	 *         {@link #close() closed} after use.
+	 * @throws IllegalArgumentException
+	 *             if any of the condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code directory} is {@code null}</li>
+	 *             <li>{@code policy} is {@code null}</li>
+	 *             <li>{@code snapshotInterval} is less than or equals to
+	 *             zero</li>
+	 *             </ul>
+	 * @throws IOException
+	 *             if the graph cannot be recovered.
+	 */
+	public static DurableGraphProcessor open(Path directory, FsyncPolicy policy, int snapshotInterval)
+			throws IOException
+	{
+		rejectIfNull(directory, "directory");
+		rejectIfNull(policy, "policy");
+		rejectIfLessThanOrEqualZero(snapshotInterval, "snapshotInterval");
+
+		Files.createDirectories(directory);
+		final DurableGraphProcessor processor = new DurableGraphProcessor(directory, snapshotInterval);
+		try
+		{
+			EdgeConsumer consumer = new EdgeConsumer()
+			{
+				@Override
+				public void accept(char parent, char child, int distance)
+				{
+					processor.apply(parent, child, distance);
+				}
+			};
+
+			long snapshotLsn = GraphSnapshot.read(directory, consumer);
+			long lastLsn = EdgeLog.replay(directory, snapshotLsn, consumer);
+			processor.edgesSinceSnapshot = lastLsn - snapshotLsn;
+			processor.log = new EdgeLog(directory, policy, lastLsn + 1);
+			return processor;
+		}
+		catch (IOException e)
+		{
+			processor.snapshotExecutor.shutdown();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds an edge to the graph and to the log.
+	 *
+	 * @param node
+	 *            parent {@link Node} of {@code edge}.
+	 * @param edge
+	 *            an {@link Edge}.
+	 * @throws IllegalArgumentException
+	 *             if any of the following condition is satisfied.
+	 *             <ul>
+	 *             <li>{@code node} is {@code null}</li>
+	 *             <li>{@code edge} is {@code null}</li>
+	 *             </ul>
+	 * @throws UncheckedIOException
+	 *             if the edge cannot be logged, after which the graph has to
+	 *             be reopened.
+	 */
+	@Override
+	public void addEdge(Node<Character> node, Edge<Character> edge)
+	{
+		rejectIfNull(node, "node");
+		rejectIfNull(edge, "edge");
+
+		try
+		{
+			long lsn;
+			synchronized (this)
+			{
+				lsn = log.append(node.getValue(), edge.getNode().getValue(), edge.getDistance());
+				apply(node.getValue(), edge.getNode().getValue(), edge.getDistance());
+				if (++edgesSinceSnapshot >= snapshotInterval && snapshotScheduled.compareAndSet(false, true))
+				{
+					scheduleSnapshot();
+				}
+			}
+
+			// waits outside of the lock, so concurrent callers join the same
+			// group commit.
+			log.awaitDurable(lsn);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void apply(char parent, char child, int distance)
+	{
+		super.addEdge(new Node<Character>(parent), new Edge<Character>(new Node<Character>(child), distance));
+
+		if (edgeCount == parents.length)
+		{
+			// the snapshot thread keeps reading the previous arrays, whose
+			// first edges never change.
+			parents = Arrays.copyOf(parents, edgeCount * 2);
+			children = Arrays.copyOf(children, edgeCount * 2);
+			distances = Arrays.copyOf(distances, edgeCount * 2);
+		}
+
+		parents[edgeCount] = parent;
+		children[edgeCount] = child;
+		distances[edgeCount++] = distance;
+	}
+
+	private void scheduleSnapshot()
+	{
+		snapshotExecutor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					snapshot();
+				}
+				catch (IOException e)
+				{
+					snapshotFailure = e;
+				}
+				finally
+				{
+					snapshotScheduled.set(false);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes a snapshot of all edges added so far and deletes the log segments
+	 * it covers. Edges can be added while the snapshot is written.
+	 *
+	 * @throws IOException
+	 *             if the snapshot cannot be written.
+	 */
+	public void snapshot() throws IOException
+	{
+		synchronized (snapshotLock)
+		{
+			EdgeLog.Rotation rotation;
+			char[] snapshotParents;
+			char[] snapshotChildren;
+			int[] snapshotDistances;
+			int snapshotEdgeCount;
+			synchronized (this)
+			{
+				// only switches the segment, so adding edges does not wait for
+				// the old segment to be forced.
+				rotation = log.switchSegment();
+				snapshotParents = parents;
+				snapshotChildren = children;
+				snapshotDistances = distances;
+				snapshotEdgeCount = edgeCount;
+				edgesSinceSnapshot = 0;
+			}
+
+			log.finishRotation(rotation);
+			long lsn = rotation.getLsn();
+			GraphSnapshot.write(directory, lsn, snapshotParents, snapshotChildren, snapshotDistances,
+					snapshotEdgeCount);
+			EdgeLog.deleteSegmentsUpTo(directory, lsn);
+		}
+	}
+
+	/**
+	 * Waits for a running snapshot and closes the log.
+	 *
+	 * @throws IOException
+	 *             if the log cannot be closed, or the last background
+	 *             snapshot failed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		snapshotExecutor.shutdown();
+		try
+		{
+			snapshotExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for the snapshot.");
+		}
+		finally
+		{
+			log.close();
+		}
+
+		if (snapshotFailure != null)
+		{
+			throw snapshotFailure;
+		}
+	}
+}
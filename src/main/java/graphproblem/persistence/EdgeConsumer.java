@@ -0,0 +1,21 @@
+package graphproblem.persistence;
+
+/**
+ * Receives the edges read from a snapshot or from the edge log.
+ *
+ * @author jojo
+ */
+interface EdgeConsumer
+{
+	/**
+	 * Called once for every edge, in the order the edges have been added.
+	 *
+	 * @param parent
+	 *            the value of the parent node.
+	 * @param child
+	 *            the value of the child node.
+	 * @param distance
+	 *            the distance of the edge.
+	 */
+	void accept(char parent, char child, int distance);
+}
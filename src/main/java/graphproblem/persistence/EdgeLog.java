@@ -0,0 +1,608 @@
+package graphproblem.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of added edges.
+ *
+ * <p>
+ * Every edge is written as a fixed size record of its log sequence number, the
+ * parent and child value, the distance and a CRC32 checksum of those fields.
+ * Records are collected in memory by {@link #append(char, char, int)} and
+ * written by the first caller of {@link #awaitDurable(long)} with a single
+ * {@link FileChannel#write(ByteBuffer)} and at most one force. Callers
+ * arriving while a batch is written wait for it and then commit everything
+ * appended in the meantime as the next batch, so concurrent writers share
+ * the cost of forcing the log. With {@link FsyncPolicy#EVERY_SECOND} the
+ * batches are only written, and a background thread forces the log once per
+ * second if anything has been written since the last force.
+ * </p>
+ *
+ * <p>
+ * The log is split into segments named after the sequence number of their
+ * first record. {@link #switchSegment()} starts a new segment, which allows
+ * the segments covered by a snapshot to be deleted, without waiting for the
+ * disk. The old segment is written, forced and closed by
+ * {@link #finishRotation(Rotation)} afterwards, while commits of records in
+ * the new segment wait for it.
+ * </p>
+ *
+ * @author jojo
+ */
+final class EdgeLog implements Closeable
+{
+	static final int RECORD_SIZE = 20;
+
+	private static final String SEGMENT_PREFIX = "edges-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final long FORCE_INTERVAL_MILLIS = 1000;
+
+	private final Path directory;
+	private final FsyncPolicy policy;
+	private final CRC32 checksum = new CRC32();
+	private final ScheduledExecutorService forceExecutor;
+	private FileChannel channel;
+	private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 1024);
+	private ByteBuffer spare = ByteBuffer.allocate(RECORD_SIZE * 1024);
+	private long nextLsn;
+	private long durableLsn;
+	private long forcedLsn;
+	private boolean flushing;
+	private boolean rotating;
+	private IOException failure;
+
+	/**
+	 * Creates a log whose first record gets the sequence number
+	 * {@code nextLsn}.
+	 */
+	EdgeLog(Path directory, FsyncPolicy policy, long nextLsn) throws IOException
+	{
+		this.directory = directory;
+		this.policy = policy;
+		this.nextLsn = nextLsn;
+		this.durableLsn = nextLsn - 1;
+		this.forcedLsn = nextLsn - 1;
+		this.channel = openSegment(nextLsn);
+		forceDirectory(directory);
+		this.forceExecutor = policy == FsyncPolicy.EVERY_SECOND ? startForcing() : null;
+	}
+
+	private ScheduledExecutorService startForcing()
+	{
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "edge-log-force");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				// a failure is kept in the log and reported to the next caller.
+				forceWritten();
+			}
+		}, FORCE_INTERVAL_MILLIS, FORCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		return executor;
+	}
+
+	private FileChannel openSegment(long firstLsn) throws IOException
+	{
+		return FileChannel.open(directory.resolve(segmentName(firstLsn)), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	private static String segmentName(long firstLsn)
+	{
+		return String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Adds an edge to the next batch.
+	 *
+	 * @return the sequence number of the record.
+	 */
+	synchronized long append(char parent, char child, int distance) throws IOException
+	{
+		checkNotFailed();
+
+		if (pending.remaining() < RECORD_SIZE)
+		{
+			ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+
+		long lsn = nextLsn++;
+		int start = pending.position();
+		pending.putLong(lsn).putChar(parent).putChar(child).putInt(distance);
+		checksum.reset();
+		checksum.update(pending.array(), start, RECORD_SIZE - 4);
+		pending.putInt((int) checksum.getValue());
+		return lsn;
+	}
+
+	/**
+	 * Waits until the record {@code lsn} has been written and forced as
+	 * required by the {@link FsyncPolicy}, writing the current batch if no
+	 * other caller is doing so.
+	 */
+	void awaitDurable(long lsn) throws IOException
+	{
+		ByteBuffer batch;
+		FileChannel batchChannel;
+		long batchLsn;
+		boolean force;
+		synchronized (this)
+		{
+			while (durableLsn < lsn && (flushing || rotating))
+			{
+				waitForFlush();
+			}
+
+			if (durableLsn >= lsn)
+			{
+				return;
+			}
+			checkNotFailed();
+
+			flushing = true;
+			batch = pending;
+			pending = spare;
+			spare = null;
+			batchLsn = nextLsn - 1;
+			batchChannel = channel;
+			force = policy == FsyncPolicy.EVERY_COMMIT;
+		}
+
+		IOException error = null;
+		try
+		{
+			write(batchChannel, batch);
+			if (force)
+			{
+				batchChannel.force(false);
+			}
+		}
+		catch (IOException e)
+		{
+			error = e;
+		}
+
+		synchronized (this)
+		{
+			flushing = false;
+			if (error == null)
+			{
+				durableLsn = batchLsn;
+				if (force)
+				{
+					forcedLsn = batchLsn;
+				}
+			}
+			else
+			{
+				failure = error;
+			}
+			batch.clear();
+			spare = batch;
+			notifyAll();
+		}
+
+		if (error != null)
+		{
+			throw error;
+		}
+	}
+
+	/**
+	 * Forces the log if records have been written since the last force.
+	 */
+	void forceWritten()
+	{
+		FileChannel forcedChannel;
+		long lsn;
+		synchronized (this)
+		{
+			// a pending rotation forces the old segment itself, and the
+			// written records may still belong to it.
+			if (failure != null || rotating || durableLsn <= forcedLsn)
+			{
+				return;
+			}
+			forcedChannel = channel;
+			lsn = durableLsn;
+		}
+
+		IOException error = null;
+		try
+		{
+			forcedChannel.force(false);
+		}
+		catch (ClosedChannelException e)
+		{
+			// rotated or closed, which forced the channel before closing it.
+			return;
+		}
+		catch (IOException e)
+		{
+			error = e;
+		}
+
+		synchronized (this)
+		{
+			if (error == null)
+			{
+				forcedLsn = Math.max(forcedLsn, lsn);
+			}
+			else if (failure == null)
+			{
+				failure = error;
+			}
+		}
+	}
+
+	/**
+	 * @return the sequence number of the last record which has been forced.
+	 */
+	synchronized long getForcedLsn()
+	{
+		return forcedLsn;
+	}
+
+	/**
+	 * Continues the log in a new segment without writing or forcing anything.
+	 * The records appended so far stay with the old segment until
+	 * {@link #finishRotation(Rotation)} is called, which has to follow.
+	 *
+	 * @return the {@link Rotation} of the old segment.
+	 */
+	synchronized Rotation switchSegment() throws IOException
+	{
+		checkNotFailed();
+		if (rotating)
+		{
+			throw new IllegalStateException("the previous rotation has not been finished.");
+		}
+
+		FileChannel newChannel = openSegment(nextLsn);
+		Rotation rotation = new Rotation(channel, pending, nextLsn - 1);
+		channel = newChannel;
+		pending = ByteBuffer.allocate(rotation.records.capacity());
+		rotating = true;
+		return rotation;
+	}
+
+	/**
+	 * Waits for a batch which is still being written to the old segment, then
+	 * writes the remaining records of {@code rotation}, forces and closes the
+	 * old segment and forces the directory entry of the new one.
+	 */
+	void finishRotation(Rotation rotation) throws IOException
+	{
+		synchronized (this)
+		{
+			while (flushing)
+			{
+				waitForFlush();
+			}
+		}
+
+		IOException error = null;
+		try
+		{
+			write(rotation.channel, rotation.records);
+			rotation.channel.force(false);
+			rotation.channel.close();
+			forceDirectory(directory);
+		}
+		catch (IOException e)
+		{
+			error = e;
+		}
+
+		synchronized (this)
+		{
+			rotating = false;
+			if (error == null)
+			{
+				durableLsn = Math.max(durableLsn, rotation.lsn);
+				forcedLsn = Math.max(forcedLsn, rotation.lsn);
+			}
+			else if (failure == null)
+			{
+				failure = error;
+			}
+			notifyAll();
+		}
+
+		if (error != null)
+		{
+			throw error;
+		}
+	}
+
+	/**
+	 * Writes and forces all appended records and closes the log.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (forceExecutor != null)
+		{
+			forceExecutor.shutdown();
+		}
+
+		if (channel.isOpen())
+		{
+			try
+			{
+				flushAll();
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+	}
+
+	private void flushAll() throws IOException
+	{
+		while (flushing || rotating)
+		{
+			waitForFlush();
+		}
+		checkNotFailed();
+
+		try
+		{
+			write(channel, pending);
+			channel.force(false);
+		}
+		catch (IOException e)
+		{
+			failure = e;
+			throw e;
+		}
+
+		pending.clear();
+		durableLsn = nextLsn - 1;
+		forcedLsn = durableLsn;
+	}
+
+	private void waitForFlush() throws InterruptedIOException
+	{
+		try
+		{
+			wait();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for the edge log.");
+		}
+	}
+
+	private void checkNotFailed() throws IOException
+	{
+		if (failure != null)
+		{
+			throw new IOException("edge log failed earlier and has to be reopened.", failure);
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * The old segment of a rotation together with the records which have not
+	 * been written to it yet.
+	 */
+	static final class Rotation
+	{
+		private final FileChannel channel;
+		private final ByteBuffer records;
+		private final long lsn;
+
+		private Rotation(FileChannel channel, ByteBuffer records, long lsn)
+		{
+			this.channel = channel;
+			this.records = records;
+			this.lsn = lsn;
+		}
+
+		/**
+		 * @return the sequence number of the last record of the old segment.
+		 */
+		long getLsn()
+		{
+			return lsn;
+		}
+	}
+
+	/**
+	 * Passes every record with a sequence number greater than {@code afterLsn}
+	 * to {@code consumer}.
+	 *
+	 * <p>
+	 * Replay stops at the first record which is incomplete, fails its checksum
+	 * or does not continue the sequence, as left behind by a crash while
+	 * writing. The segment is truncated there and all later segments are
+	 * deleted, so the log can be continued after the last valid record.
+	 * </p>
+	 *
+	 * @return the sequence number of the last valid record, or
+	 *         {@code afterLsn} if there is none after it.
+	 * @throws IOException
+	 *             if the log cannot be read, or records between
+	 *             {@code afterLsn} and the first segment are missing.
+	 */
+	static long replay(Path directory, long afterLsn, EdgeConsumer consumer) throws IOException
+	{
+		long expectedLsn = -1;
+		boolean corrupt = false;
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+		CRC32 checksum = new CRC32();
+
+		for (Path segment : listSegments(directory))
+		{
+			long firstLsn = getFirstLsn(segment);
+			if (expectedLsn < 0)
+			{
+				if (firstLsn > afterLsn + 1)
+				{
+					throw new IOException("edge log is missing the records after " + afterLsn + ".");
+				}
+				expectedLsn = firstLsn;
+			}
+
+			if (corrupt || firstLsn != expectedLsn)
+			{
+				corrupt = true;
+				Files.delete(segment);
+				continue;
+			}
+
+			FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try
+			{
+				long validBytes = 0;
+				buffer.clear();
+				while (!corrupt && channel.read(buffer) >= 0)
+				{
+					buffer.flip();
+					while (buffer.remaining() >= RECORD_SIZE)
+					{
+						checksum.reset();
+						checksum.update(buffer.array(), buffer.position(), RECORD_SIZE - 4);
+						long lsn = buffer.getLong();
+						char parent = buffer.getChar();
+						char child = buffer.getChar();
+						int distance = buffer.getInt();
+						if (buffer.getInt() != (int) checksum.getValue() || lsn != expectedLsn)
+						{
+							corrupt = true;
+							break;
+						}
+
+						if (lsn > afterLsn)
+						{
+							consumer.accept(parent, child, distance);
+						}
+						expectedLsn++;
+						validBytes += RECORD_SIZE;
+					}
+					buffer.compact();
+				}
+
+				if (corrupt || validBytes < channel.size())
+				{
+					corrupt = true;
+					channel.truncate(validBytes);
+					channel.force(true);
+				}
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+
+		return Math.max(afterLsn, expectedLsn - 1);
+	}
+
+	/**
+	 * Deletes the segments which only contain records up to {@code lsn}.
+	 */
+	static void deleteSegmentsUpTo(Path directory, long lsn) throws IOException
+	{
+		List<Path> segments = listSegments(directory);
+		for (int index = 0; index + 1 < segments.size(); index++)
+		{
+			if (getFirstLsn(segments.get(index + 1)) <= lsn + 1)
+			{
+				Files.delete(segments.get(index));
+			}
+		}
+	}
+
+	private static List<Path> listSegments(Path directory) throws IOException
+	{
+		List<Path> segments = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX);
+		try
+		{
+			for (Path segment : stream)
+			{
+				segments.add(segment);
+			}
+		}
+		finally
+		{
+			stream.close();
+		}
+
+		// the sequence numbers are zero padded, so names sort numerically.
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private static long getFirstLsn(Path segment)
+	{
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	/**
+	 * Forces the directory entry of created or renamed files where the
+	 * platform allows to open a directory.
+	 */
+	static void forceDirectory(Path directory)
+	{
+		try
+		{
+			FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ);
+			try
+			{
+				channel.force(true);
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// not supported on every platform, the files themselves are forced.
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package graphproblem.persistence;
+
+/**
+ * Describes when the edge log forces written records to the storage device.
+ *
+ * @author jojo
+ */
+public enum FsyncPolicy
+{
+	/**
+	 * Every group commit is forced before the waiting callers return, so an
+	 * added edge survives a crash of the machine.
+	 */
+	EVERY_COMMIT,
+
+	/**
+	 * Group commits are only written, and a background thread forces the log
+	 * once per second if anything has been written since. A crash of the
+	 * machine loses at most about one second of edges, a crash of the process
+	 * loses none.
+	 */
+	EVERY_SECOND,
+
+	/**
+	 * Records are only forced when the log is rotated or closed, otherwise it
+	 * is left to the operating system. A crash of the process loses no edges.
+	 */
+	NEVER;
+}
@@ -0,0 +1,247 @@
+package graphproblem.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes snapshots of all edges up to a log sequence number.
+ *
+ * <p>
+ * A snapshot starts with a header of a magic number, the format version, the
+ * sequence number and the number of edges. The edges follow grouped by their
+ * parent node, as the parent value and the varint encoded group size, then
+ * the child value and the varint encoded distance minus one of every edge.
+ * The file ends with a CRC32 checksum of everything before it. Edges of the
+ * same parent keep the order they were added in, which is the only order the
+ * queries of {@link graphproblem.logic.GraphProcessor} depend on.
+ * </p>
+ *
+ * <p>
+ * A snapshot is written to a temporary file, forced and atomically renamed,
+ * so a crash never leaves a partial snapshot behind.
+ * </p>
+ *
+ * @author jojo
+ */
+final class GraphSnapshot
+{
+	private static final int MAGIC = 0x47534e50;
+	private static final int VERSION = 1;
+	private static final String PREFIX = "snapshot-";
+	private static final String SUFFIX = ".bin";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private GraphSnapshot()
+	{
+	}
+
+	/**
+	 * Writes the first {@code edgeCount} edges of the given arrays as the
+	 * snapshot of {@code lsn} and deletes all older snapshots.
+	 */
+	static void write(Path directory, long lsn, char[] parents, char[] children, int[] distances, int edgeCount)
+			throws IOException
+	{
+		int[] order = groupByParent(parents, edgeCount);
+		Path temporary = directory.resolve(snapshotName(lsn) + TEMPORARY_SUFFIX);
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			CheckedOutputStream checked = new CheckedOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+			DataOutputStream output = new DataOutputStream(checked);
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(lsn);
+			output.writeInt(edgeCount);
+
+			int start = 0;
+			while (start < edgeCount)
+			{
+				int end = start + 1;
+				while (end < edgeCount && parents[order[end]] == parents[order[start]])
+				{
+					end++;
+				}
+
+				output.writeChar(parents[order[start]]);
+				writeVarint(output, end - start);
+				for (int index = start; index < end; index++)
+				{
+					output.writeChar(children[order[index]]);
+					writeVarint(output, distances[order[index]] - 1);
+				}
+				start = end;
+			}
+
+			output.writeInt((int) checked.getChecksum().getValue());
+			output.flush();
+			channel.force(true);
+		}
+		finally
+		{
+			channel.close();
+		}
+
+		Path target = directory.resolve(snapshotName(lsn));
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+		EdgeLog.forceDirectory(directory);
+
+		// also removes temporary files left behind by a crash while writing.
+		for (Path snapshot : listFiles(directory, PREFIX + "*" + SUFFIX + "*"))
+		{
+			if (!snapshot.equals(target))
+			{
+				Files.delete(snapshot);
+			}
+		}
+	}
+
+	/**
+	 * Stable counting sort of the edge indexes by parent value.
+	 */
+	private static int[] groupByParent(char[] parents, int edgeCount)
+	{
+		int[] starts = new int[Character.MAX_VALUE + 2];
+		for (int edge = 0; edge < edgeCount; edge++)
+		{
+			starts[parents[edge] + 1]++;
+		}
+
+		for (int value = 0; value <= Character.MAX_VALUE; value++)
+		{
+			starts[value + 1] += starts[value];
+		}
+
+		int[] order = new int[edgeCount];
+		for (int edge = 0; edge < edgeCount; edge++)
+		{
+			order[starts[parents[edge]]++] = edge;
+		}
+
+		return order;
+	}
+
+	/**
+	 * Passes all edges of the latest snapshot to {@code consumer}.
+	 *
+	 * @return the sequence number of the snapshot, or 0 if there is none.
+	 * @throws IOException
+	 *             if the snapshot cannot be read or is corrupt.
+	 */
+	static long read(Path directory, EdgeConsumer consumer) throws IOException
+	{
+		List<Path> snapshots = listFiles(directory, PREFIX + "*" + SUFFIX);
+		if (snapshots.isEmpty())
+		{
+			return 0;
+		}
+
+		Path snapshot = snapshots.get(snapshots.size() - 1);
+		CheckedInputStream checked = new CheckedInputStream(
+				new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), new CRC32());
+		DataInputStream input = new DataInputStream(checked);
+		try
+		{
+			if (input.readInt() != MAGIC || input.readInt() != VERSION)
+			{
+				throw new IOException(snapshot + " is not a snapshot of this version.");
+			}
+
+			long lsn = input.readLong();
+			int edgeCount = input.readInt();
+			int edge = 0;
+			while (edge < edgeCount)
+			{
+				char parent = input.readChar();
+				int groupSize = readVarint(input);
+				for (int index = 0; index < groupSize; index++)
+				{
+					char child = input.readChar();
+					consumer.accept(parent, child, readVarint(input) + 1);
+				}
+				edge += groupSize;
+			}
+
+			int expectedChecksum = (int) checked.getChecksum().getValue();
+			if (edge != edgeCount || input.readInt() != expectedChecksum)
+			{
+				throw new IOException(snapshot + " is corrupt.");
+			}
+
+			return lsn;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+
+	private static List<Path> listFiles(Path directory, String glob) throws IOException
+	{
+		List<Path> files = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob);
+		try
+		{
+			for (Path file : stream)
+			{
+				files.add(file);
+			}
+		}
+		finally
+		{
+			stream.close();
+		}
+
+		Collections.sort(files);
+		return files;
+	}
+
+	private static String snapshotName(long lsn)
+	{
+		return String.format("%s%020d%s", PREFIX, lsn, SUFFIX);
+	}
+
+	private static void writeVarint(DataOutputStream output, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			output.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.writeByte(value);
+	}
+
+	private static int readVarint(DataInputStream input) throws IOException
+	{
+		int value = 0;
+		int shift = 0;
+		byte current;
+		do
+		{
+			current = input.readByte();
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		}
+		while (current < 0 && shift < Integer.SIZE);
+
+		return value;
+	}
+}
@@ -49,4 +49,25 @@ public class ArgumentChecker
 
 		return val;
 	}
-}
+
+	/**
+	 * Verifies is given value is less than or equal to zero.
+	 * 
+	 * @param value
+	 *            the value to be verified.
+	 * @param argumentName
+	 *            the name of the variable.
+	 * @return {@code value} if {@code value} is greater than zero.
+	 * @throws IllegalArgumentException
+	 *             if {@code value} is less than or equal to zero.
+	 */
+	public static long rejectIfLessThanOrEqualZero(long val, String argumentName)
+	{
+		if (val <= 0)
+		{
+			throw new IllegalArgumentException(argumentName + " cannot be less than or equal to zero.");
+		}
+
+		return val;
+	}
+}
\ No newline at end of file
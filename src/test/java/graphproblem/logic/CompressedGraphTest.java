@@ -0,0 +1,131 @@
+package graphproblem.logic;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link CompressedGraph}.
+ *
+ * @author jojo
+ */
+public class CompressedGraphTest
+{
+	private static final int NODE_COUNT = 300;
+
+	private static CompressedGraph compressedGraph;
+	private static GraphProcessor randomGraphProcessor;
+	private static CompressedGraph randomCompressedGraph;
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		GraphProcessor graphProcessor = new GraphProcessor();
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), 5));
+		graphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 4));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('E'), 6));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('D'), 5));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('E'), 2));
+		graphProcessor.addEdge(new Node<Character>('E'), new Edge<Character>(new Node<Character>('B'), 3));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+		compressedGraph = graphProcessor.compress();
+
+		Random random = new Random(11);
+		randomGraphProcessor = new GraphProcessor();
+		for (int count = 0; count < 4 * NODE_COUNT; count++)
+		{
+			randomGraphProcessor.addEdge(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+					new Edge<Character>(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+							1 + random.nextInt(200)));
+		}
+		randomCompressedGraph = randomGraphProcessor.compress();
+	}
+
+	/**
+	 * Testing the routes of the sample graph.
+	 */
+	@Test
+	public void testFindDistanceWithExactNodeStop()
+	{
+		assertThat(compressedGraph.findDistanceWithExactNodeStop(
+				Arrays.asList(new Node<Character>('A'), new Node<Character>('B'), new Node<Character>('C'))), is(9));
+		assertThat(compressedGraph.findDistanceWithExactNodeStop(Arrays.asList(new Node<Character>('A'),
+				new Node<Character>('E'), new Node<Character>('B'), new Node<Character>('C'),
+				new Node<Character>('D'))), is(22));
+		assertThat(compressedGraph.findDistanceWithExactNodeStop(
+				Arrays.asList(new Node<Character>('A'), new Node<Character>('E'), new Node<Character>('D'))), is(-1));
+		assertThat(compressedGraph.findDistanceWithExactNodeStop(
+				Arrays.asList(new Node<Character>('A'), new Node<Character>('Z'))), is(-1));
+	}
+
+	/**
+	 * Testing the trip counts and shortest paths of the sample graph.
+	 */
+	@Test
+	public void testTripsAndShortestPaths()
+	{
+		Node<Character> nodeA = new Node<Character>('A');
+		Node<Character> nodeB = new Node<Character>('B');
+		Node<Character> nodeC = new Node<Character>('C');
+
+		assertThat(compressedGraph.findTripsWithExactStopCount(4, nodeA, nodeC), is(3));
+		assertThat(compressedGraph.findTripWithMaxStopCountLimit(3, nodeC, nodeC), is(2));
+		assertThat(compressedGraph.findTripsWithMaxDistanceLimit(30, nodeC, nodeC), is(7));
+		assertThat(compressedGraph.findShortestPathBasedOnDistance(nodeA, nodeC), is(9));
+		assertThat(compressedGraph.findShortestPathBasedOnDistance(nodeB, nodeB), is(9));
+		assertThat(compressedGraph.findShortestPathBasedOnDistance(nodeC, nodeA), is(-1));
+	}
+
+	/**
+	 * Testing a random graph, including parallel edges and loops, against
+	 * {@link GraphProcessor}.
+	 */
+	@Test
+	public void testRandomGraph_SameAsGraphProcessor()
+	{
+		assertThat(randomCompressedGraph.getNodeCount(), is(randomGraphProcessor.getIndexedGraph().getNodeCount()));
+		assertThat(randomCompressedGraph.getEdgeCount(), is(4 * NODE_COUNT));
+
+		Random random = new Random(13);
+		for (int count = 0; count < 50; count++)
+		{
+			Node<Character> node1 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+			Node<Character> node2 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+			Node<Character> node3 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+
+			assertThat(randomCompressedGraph.findShortestPathBasedOnDistance(node1, node2),
+					is(randomGraphProcessor.findShortestDistance(node1, node2)));
+			assertThat(randomCompressedGraph.findDistanceWithExactNodeStop(Arrays.asList(node1, node2, node3)),
+					is(randomGraphProcessor.findDistance(Arrays.asList(node1, node2, node3))));
+			assertThat(randomCompressedGraph.countTripsWithMaxStopCountLimit(6, node1, node2, CountingMode.exact()),
+					is(randomGraphProcessor.countTripsWithMaxStopCountLimit(6, node1, node2, CountingMode.exact())));
+			assertThat(randomCompressedGraph.countTripsWithMaxDistanceLimit(300, node1, node2, CountingMode.exact()),
+					is(randomGraphProcessor.countTripsWithMaxDistanceLimit(300, node1, node2, CountingMode.exact())));
+		}
+	}
+
+	/**
+	 * Testing that the encoded graph stays below three bytes per edge and
+	 * direction, plus the offsets of each node.
+	 */
+	@Test
+	public void testGetSizeInBytes()
+	{
+		long offsetBytes = 2L * 4 * (randomCompressedGraph.getNodeCount() + 1);
+		long nodeBytes = 2L * randomCompressedGraph.getNodeCount();
+
+		assertThat(randomCompressedGraph.getSizeInBytes() - offsetBytes - nodeBytes,
+				lessThan(2L * 3 * randomCompressedGraph.getEdgeCount()));
+	}
+}
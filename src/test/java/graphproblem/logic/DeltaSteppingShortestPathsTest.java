@@ -0,0 +1,111 @@
+package graphproblem.logic;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link DeltaSteppingShortestPaths}.
+ * 
+ * @author jojo
+ */
+public class DeltaSteppingShortestPathsTest
+{
+	private static final int NODE_COUNT = 2000;
+
+	private static GraphProcessor graphProcessor;
+	private static ForkJoinPool pool;
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		Random random = new Random(7);
+		graphProcessor = new GraphProcessor();
+		for (int count = 0; count < 5 * NODE_COUNT; count++)
+		{
+			graphProcessor.addEdge(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+					new Edge<Character>(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+							1 + random.nextInt(100)));
+		}
+
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Testing the automatically chosen delta against Dijkstra's algorithm.
+	 */
+	@Test
+	public void testFindShortestDistances_AutomaticDelta()
+	{
+		DeltaSteppingShortestPaths shortestPaths = new DeltaSteppingShortestPaths(graphProcessor, pool);
+
+		assertThat(shortestPaths.getDelta(), is(20));
+		assertSameAsDijkstra(shortestPaths, new Node<Character>((char) 0));
+	}
+
+	/**
+	 * Testing a delta of one, which settles one distance per bucket.
+	 */
+	@Test
+	public void testFindShortestDistances_SmallDelta()
+	{
+		assertSameAsDijkstra(new DeltaSteppingShortestPaths(graphProcessor, pool, 1), new Node<Character>((char) 1));
+	}
+
+	/**
+	 * Testing a delta larger than every distance, which relaxes all nodes in
+	 * parallel in a single bucket.
+	 */
+	@Test
+	public void testFindShortestDistances_LargeDelta()
+	{
+		assertSameAsDijkstra(new DeltaSteppingShortestPaths(graphProcessor, pool, Integer.MAX_VALUE),
+				new Node<Character>((char) 2));
+	}
+
+	/**
+	 * Testing a node without any edges.
+	 */
+	@Test
+	public void testFindShortestDistances_UnknownNode()
+	{
+		Map<Node<Character>, Integer> distances = new DeltaSteppingShortestPaths(graphProcessor, pool)
+				.findShortestDistances(new Node<Character>((char) NODE_COUNT));
+
+		assertThat(distances.size(), is(1));
+		assertThat(distances.get(new Node<Character>((char) NODE_COUNT)), is(0));
+	}
+
+	private static void assertSameAsDijkstra(DeltaSteppingShortestPaths shortestPaths, Node<Character> source)
+	{
+		Map<Node<Character>, Integer> distances = shortestPaths.findShortestDistances(source);
+
+		assertThat(distances.get(source), is(0));
+		for (char value = 0; value < NODE_COUNT; value++)
+		{
+			Node<Character> target = new Node<Character>(value);
+			if (!target.equals(source))
+			{
+				Integer distance = distances.get(target);
+				assertThat(distance == null ? -1 : distance,
+						is(graphProcessor.findShortestPathBasedOnDistance(source, target)));
+			}
+		}
+	}
+}
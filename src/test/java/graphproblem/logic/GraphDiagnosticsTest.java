@@ -0,0 +1,170 @@
+package graphproblem.logic;
+
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+import graphproblem.model.QueryResult;
+import graphproblem.model.TripCount;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link GraphDiagnostics}.
+ * 
+ * @author jojo
+ */
+public class GraphDiagnosticsTest
+{
+	private static GraphProcessor graphProcessor;
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		graphProcessor = new GraphProcessor();
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), 5));
+		graphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 4));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('E'), 6));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('D'), 5));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('E'), 2));
+		graphProcessor.addEdge(new Node<Character>('E'), new Edge<Character>(new Node<Character>('B'), 3));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+	}
+
+	/**
+	 * Testing the statistics of the route A-E-B-C-D.
+	 */
+	@Test
+	public void testFindDistanceWithExactNodeStop()
+	{
+		QueryResult<Integer> result = graphProcessor.withDiagnostics(false)
+				.findDistanceWithExactNodeStop(Arrays.asList(new Node<Character>('A'), new Node<Character>('E'),
+						new Node<Character>('B'), new Node<Character>('C'), new Node<Character>('D')));
+
+		assertThat(result.getValue(), is(22));
+		assertThat(result.getStats().getNodesVisited(), is(4L));
+		assertThat(result.getStats().getEdgesScanned(), is(6L));
+		assertThat(result.getStats().getMaxDepth(), is(4));
+		assertThat(result.getStats().getMaxDistance(), is(22L));
+		assertThat(result.getStats().getMaxQueueSize(), is(0L));
+		assertThat(result.getStats().getWallTimeNanos(), greaterThanOrEqualTo(0L));
+	}
+
+	/**
+	 * Testing the statistics of the shortest route between A to C.
+	 */
+	@Test
+	public void testFindShortestPathBasedOnDistance()
+	{
+		QueryResult<Integer> result = graphProcessor.withDiagnostics(false)
+				.findShortestPathBasedOnDistance(new Node<Character>('A'), new Node<Character>('C'));
+
+		assertThat(result.getValue(), is(9));
+		assertThat(result.getStats().getHeapPushes(), greaterThan(0L));
+		assertThat(result.getStats().getHeapPops(), greaterThan(0L));
+		assertThat(result.getStats().getEdgesScanned(), greaterThan(0L));
+		assertThat(result.getStats().getMaxQueueSize(), greaterThan(0L));
+		assertThat(result.getStats().getMaxDistance(), is(9L));
+		assertThat(result.getStats().getMaxDepth(), is(0));
+		assertThat(result.getStats().getAllocatedBytes(),
+				isAllocatedMemorySupported() ? greaterThan(0L) : is(-1L));
+	}
+
+	private static boolean isAllocatedMemorySupported()
+	{
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!(threadMXBean instanceof com.sun.management.ThreadMXBean))
+		{
+			return false;
+		}
+
+		com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		return allocationMXBean.isThreadAllocatedMemorySupported()
+				&& allocationMXBean.isThreadAllocatedMemoryEnabled();
+	}
+
+	/**
+	 * Testing the statistics of counting trips starting at A and ending at C
+	 * with exactly 4 stops.
+	 */
+	@Test
+	public void testCountTripsWithExactStopCount()
+	{
+		QueryResult<TripCount> result = graphProcessor.withDiagnostics(false).countTripsWithExactStopCount(4,
+				new Node<Character>('A'), new Node<Character>('C'), CountingMode.exact());
+
+		assertThat(result.getValue(), is(new TripCount(BigInteger.valueOf(3), TripCount.Status.EXACT)));
+		assertThat(result.getStats().getMaxDepth(), is(4));
+		assertThat(result.getStats().getMaxDistance(), is(0L));
+		assertThat(result.getStats().getHeapPushes(), is(0L));
+	}
+
+	/**
+	 * Testing the statistics of counting trips starting and ending at C with a
+	 * distance of less than 30, whose counting layers are travelled distances
+	 * rather than stops.
+	 */
+	@Test
+	public void testCountTripsWithMaxDistanceLimit()
+	{
+		QueryResult<TripCount> result = graphProcessor.withDiagnostics(false).countTripsWithMaxDistanceLimit(30,
+				new Node<Character>('C'), new Node<Character>('C'), CountingMode.exact());
+
+		assertThat(result.getValue(), is(new TripCount(BigInteger.valueOf(7), TripCount.Status.EXACT)));
+		assertThat(result.getStats().getMaxDistance(), both(greaterThanOrEqualTo(27L)).and(lessThan(30L)));
+		assertThat(result.getStats().getMaxDepth(), is(0));
+		assertThat(result.getStats().getNodesVisited(), greaterThan(0L));
+	}
+
+	/**
+	 * Testing that a query commits a JFR event while a recording is running.
+	 */
+	@Test
+	public void testFindShortestPathBasedOnDistance_JfrEvent() throws Exception
+	{
+		File dump = File.createTempFile("graph-diagnostics", ".jfr");
+		try
+		{
+			Recording recording = new Recording();
+			recording.enable("graphproblem.Query");
+			recording.start();
+			graphProcessor.withDiagnostics(true).findShortestPathBasedOnDistance(new Node<Character>('A'),
+					new Node<Character>('C'));
+			recording.stop();
+			recording.dump(dump.toPath());
+			recording.close();
+
+			int events = 0;
+			for (RecordedEvent event : RecordingFile.readAllEvents(dump.toPath()))
+			{
+				if (event.getEventType().getName().equals("graphproblem.Query"))
+				{
+					assertThat(event.getString("query"), is("findShortestPathBasedOnDistance"));
+					events++;
+				}
+			}
+			assertThat(events, is(1));
+		}
+		finally
+		{
+			dump.delete();
+		}
+	}
+}
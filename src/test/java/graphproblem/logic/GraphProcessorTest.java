@@ -3,13 +3,16 @@ package graphproblem.logic;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
 
+import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import graphproblem.model.Edge;
 import graphproblem.model.Node;
+import graphproblem.model.TripCount;
 
 /**
  * Tests for {@link GraphProcessor}.
@@ -156,4 +159,280 @@ public class GraphProcessorTest
 				new Node<Character>('B'));
 		assertThat(actualShortestDistance, is(9));
 	}
+
+	/**
+	 * Testing that every counting mode agrees with the number of trips
+	 * starting at A and ending at C with exactly 4 stops.
+	 */
+	@Test
+	public void testCountTripsWithExactStopCount_AllModes()
+	{
+		assertThat(graphProcessor.countTripsWithExactStopCount(4, new Node<Character>('A'), new Node<Character>('C'),
+				CountingMode.saturating()), is(new TripCount(BigInteger.valueOf(3), TripCount.Status.EXACT)));
+		assertThat(graphProcessor.countTripsWithExactStopCount(4, new Node<Character>('A'), new Node<Character>('C'),
+				CountingMode.exact()), is(new TripCount(BigInteger.valueOf(3), TripCount.Status.EXACT)));
+		assertThat(graphProcessor.countTripsWithExactStopCount(4, new Node<Character>('A'), new Node<Character>('C'),
+				CountingMode.modulo(2)), is(new TripCount(BigInteger.ONE, TripCount.Status.MODULAR)));
+	}
+
+	/**
+	 * Testing number of trips starting at C and ending at C with maximum
+	 * distance traveled is 28, counted exactly.
+	 */
+	@Test
+	public void testCountTripsWithMaxDistanceLimit()
+	{
+		assertThat(graphProcessor.countTripsWithMaxDistanceLimit(28, new Node<Character>('C'), new Node<Character>('C'),
+				CountingMode.exact()), is(new TripCount(BigInteger.valueOf(7), TripCount.Status.EXACT)));
+	}
+
+	/**
+	 * Testing large edge distances and distance limits, which are counted
+	 * without visiting every distance below the limit.
+	 */
+	@Test(timeout = 5000)
+	public void testCountTripsWithMaxDistanceLimit_LargeDistances()
+	{
+		Node<Character> nodeA = new Node<Character>('A');
+
+		assertThat(createCycleGraphProcessor(100000).findTripsWithMaxDistanceLimit(200000000, nodeA, nodeA),
+				is(999));
+		assertThat(createCycleGraphProcessor(50000000).countTripsWithMaxDistanceLimit(Integer.MAX_VALUE, nodeA,
+				nodeA, CountingMode.exact()), is(new TripCount(BigInteger.valueOf(21), TripCount.Status.EXACT)));
+	}
+
+	/**
+	 * Testing edges with the largest possible distance, whose sums do not fit
+	 * into an int.
+	 */
+	@Test(timeout = 5000)
+	public void testCountTripsWithMaxDistanceLimit_MaxIntDistance()
+	{
+		GraphProcessor cycleGraphProcessor = createCycleGraphProcessor(Integer.MAX_VALUE);
+		Node<Character> nodeA = new Node<Character>('A');
+		Node<Character> nodeB = new Node<Character>('B');
+
+		assertThat(cycleGraphProcessor.findTripsWithMaxDistanceLimit(Integer.MAX_VALUE, nodeA, nodeB), is(0));
+		assertThat(cycleGraphProcessor.countTripsWithMaxDistanceLimit(Integer.MAX_VALUE, nodeA, nodeA,
+				CountingMode.saturating()), is(new TripCount(BigInteger.ZERO, TripCount.Status.EXACT)));
+		assertThat(createCycleGraphProcessor(Integer.MAX_VALUE - 1).countTripsWithMaxDistanceLimit(Integer.MAX_VALUE,
+				nodeA, nodeB, CountingMode.modulo(7)), is(new TripCount(BigInteger.ONE, TripCount.Status.MODULAR)));
+	}
+
+	/**
+	 * Testing trips from A to A, which cannot exist because no edge leads back
+	 * to A.
+	 */
+	@Test
+	public void testCountTripsWithMaxStopCountLimit_Unreachable()
+	{
+		assertThat(graphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, new Node<Character>('A'),
+				new Node<Character>('A'), CountingMode.saturating()),
+				is(new TripCount(BigInteger.ZERO, TripCount.Status.EXACT)));
+	}
+
+	/**
+	 * Testing trip counts on a graph where the number of trips from X to X
+	 * with at most n stops is 2^n - 1.
+	 */
+	@Test
+	public void testCountTripsWithMaxStopCountLimit_DenseCycles()
+	{
+		GraphProcessor denseGraphProcessor = createDenseGraphProcessor();
+		Node<Character> node = new Node<Character>('X');
+
+		assertThat(denseGraphProcessor.countTripsWithMaxStopCountLimit(100, node, node, CountingMode.exact()),
+				is(new TripCount(BigInteger.ONE.shiftLeft(100).subtract(BigInteger.ONE), TripCount.Status.EXACT)));
+		assertThat(denseGraphProcessor.countTripsWithMaxStopCountLimit(100, node, node, CountingMode.modulo(1000)),
+				is(new TripCount(BigInteger.ONE.shiftLeft(100).subtract(BigInteger.ONE).mod(BigInteger.valueOf(1000)),
+						TripCount.Status.MODULAR)));
+		TripCount saturated = new TripCount(BigInteger.valueOf(Long.MAX_VALUE), TripCount.Status.SATURATED);
+		assertThat(denseGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, node, node,
+				CountingMode.saturating()), is(saturated));
+		assertThat(denseGraphProcessor.countTripsWithExactStopCount(Integer.MAX_VALUE, node, node,
+				CountingMode.saturating()), is(saturated));
+	}
+
+	/**
+	 * Testing a single cycle A-B-A, where the number of trips from A to A with
+	 * at most n stops is n / 2, for the largest possible stop count.
+	 */
+	@Test(timeout = 5000)
+	public void testCountTripsWithMaxStopCountLimit_LongCycle()
+	{
+		GraphProcessor cycleGraphProcessor = createCycleGraphProcessor(1);
+		Node<Character> nodeA = new Node<Character>('A');
+
+		assertThat(cycleGraphProcessor.findTripWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeA),
+				is(1073741823));
+		assertThat(cycleGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeA,
+				CountingMode.exact()), is(new TripCount(BigInteger.valueOf(1073741823), TripCount.Status.EXACT)));
+		assertThat(cycleGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeA,
+				CountingMode.modulo(1000)), is(new TripCount(BigInteger.valueOf(823), TripCount.Status.MODULAR)));
+		assertThat(cycleGraphProcessor.findTripsWithExactStopCount(Integer.MAX_VALUE, nodeA, nodeA), is(0));
+		assertThat(cycleGraphProcessor.findTripsWithExactStopCount(Integer.MAX_VALUE - 1, nodeA, nodeA), is(1));
+	}
+
+	/**
+	 * Testing two cycles A-B-A and C-D-C joined by an edge from B to C, where
+	 * the number of trips from A to C grows quadratically with the number of
+	 * stops.
+	 */
+	@Test(timeout = 5000)
+	public void testCountTripsWithMaxStopCountLimit_CycleChain()
+	{
+		GraphProcessor chainGraphProcessor = createCycleGraphProcessor(1);
+		chainGraphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 1));
+		chainGraphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 1));
+		chainGraphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 1));
+		Node<Character> nodeA = new Node<Character>('A');
+		Node<Character> nodeC = new Node<Character>('C');
+
+		// (m + 1)(m + 2) / 2 trips for m = (Integer.MAX_VALUE - 2) / 2
+		BigInteger expected = BigInteger.valueOf(576460751766552576L);
+		assertThat(chainGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeC,
+				CountingMode.saturating()), is(new TripCount(expected, TripCount.Status.EXACT)));
+		assertThat(chainGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeC,
+				CountingMode.exact()), is(new TripCount(expected, TripCount.Status.EXACT)));
+		assertThat(chainGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, nodeA, nodeC,
+				CountingMode.modulo(1000000007)),
+				is(new TripCount(expected.mod(BigInteger.valueOf(1000000007)), TripCount.Status.MODULAR)));
+		assertThat(chainGraphProcessor.countTripsWithExactStopCount(Integer.MAX_VALUE - 1, nodeA, nodeC,
+				CountingMode.exact()), is(new TripCount(BigInteger.valueOf(1073741823), TripCount.Status.EXACT)));
+	}
+
+	/**
+	 * Testing a single cycle of 2000 nodes, which is too large for transfer
+	 * matrices, so that the largest possible stop count is rejected rather
+	 * than counted stop by stop.
+	 */
+	@Test(timeout = 5000, expected = IllegalArgumentException.class)
+	public void testCountTripsWithMaxStopCountLimit_LargeCycle()
+	{
+		GraphProcessor ringGraphProcessor = createRingGraphProcessor(2000, false);
+		Node<Character> node = new Node<Character>((char) 0);
+
+		assertThat(ringGraphProcessor.countTripsWithMaxStopCountLimit(4000, node, node, CountingMode.modulo(1000)),
+				is(new TripCount(BigInteger.valueOf(2), TripCount.Status.MODULAR)));
+		ringGraphProcessor.countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, node, node, CountingMode.modulo(1000));
+	}
+
+	/**
+	 * Testing 2000 nodes with exponentially many trips, which are too many
+	 * for transfer matrices but saturate long before the largest possible
+	 * stop count.
+	 */
+	@Test(timeout = 5000)
+	public void testCountTripsWithMaxStopCountLimit_LargeDenseGraph()
+	{
+		Node<Character> node = new Node<Character>((char) 0);
+
+		assertThat(createRingGraphProcessor(2000, true).countTripsWithMaxStopCountLimit(Integer.MAX_VALUE, node, node,
+				CountingMode.saturating()),
+				is(new TripCount(BigInteger.valueOf(Long.MAX_VALUE), TripCount.Status.SATURATED)));
+	}
+
+	/**
+	 * Testing that saturating and modular counts of random graphs agree with
+	 * the exact count, for stop counts which are counted stop by stop as well
+	 * as by repeated squaring.
+	 */
+	@Test
+	public void testCountTripsWithStopCount_RandomGraphs()
+	{
+		Random random = new Random(23);
+		BigInteger saturated = BigInteger.valueOf(Long.MAX_VALUE);
+		CountingMode[] modularModes = { CountingMode.modulo(1000000007), CountingMode.modulo(Long.MAX_VALUE - 24) };
+		for (int graphCount = 0; graphCount < 20; graphCount++)
+		{
+			GraphProcessor randomGraphProcessor = new GraphProcessor();
+			int nodeCount = 2 + random.nextInt(5);
+			int edgeCount = 1 + random.nextInt(2 * nodeCount);
+			for (int count = 0; count < edgeCount; count++)
+			{
+				randomGraphProcessor.addEdge(new Node<Character>((char) ('A' + random.nextInt(nodeCount))),
+						new Edge<Character>(new Node<Character>((char) ('A' + random.nextInt(nodeCount))), 1));
+			}
+
+			for (int stopCount : new int[] { 1, 2, 3, 7, 200, 1000 })
+			{
+				Node<Character> node1 = new Node<Character>((char) ('A' + random.nextInt(nodeCount)));
+				Node<Character> node2 = new Node<Character>((char) ('A' + random.nextInt(nodeCount)));
+				for (boolean exactStops : new boolean[] { true, false })
+				{
+					BigInteger exact = countTrips(randomGraphProcessor, stopCount, node1, node2, exactStops,
+							CountingMode.exact()).getValue();
+
+					TripCount expectedSaturated = exact.compareTo(saturated) >= 0
+							? new TripCount(saturated, TripCount.Status.SATURATED)
+							: new TripCount(exact, TripCount.Status.EXACT);
+					assertThat(countTrips(randomGraphProcessor, stopCount, node1, node2, exactStops,
+							CountingMode.saturating()), is(expectedSaturated));
+					for (CountingMode modularMode : modularModes)
+					{
+						TripCount modular = countTrips(randomGraphProcessor, stopCount, node1, node2, exactStops,
+								modularMode);
+						assertThat(modular.getStatus(), is(TripCount.Status.MODULAR));
+						assertThat(modular.getValue(), is(exact.mod(BigInteger.valueOf(modularMode.getModulus()))));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Testing that a trip count which does not fit into an int is rejected.
+	 */
+	@Test(expected = ArithmeticException.class)
+	public void testFindTripsWithMaxStopCount_Overflow()
+	{
+		Node<Character> node = new Node<Character>('X');
+		createDenseGraphProcessor().findTripWithMaxStopCountLimit(40, node, node);
+	}
+
+	private static TripCount countTrips(GraphProcessor graphProcessor, int stopCount, Node<Character> node1,
+			Node<Character> node2, boolean exactStops, CountingMode mode)
+	{
+		if (exactStops)
+		{
+			return graphProcessor.countTripsWithExactStopCount(stopCount, node1, node2, mode);
+		}
+
+		return graphProcessor.countTripsWithMaxStopCountLimit(stopCount, node1, node2, mode);
+	}
+
+	private static GraphProcessor createRingGraphProcessor(int nodeCount, boolean withShortcuts)
+	{
+		GraphProcessor ringGraphProcessor = new GraphProcessor();
+		for (int node = 0; node < nodeCount; node++)
+		{
+			ringGraphProcessor.addEdge(new Node<Character>((char) node),
+					new Edge<Character>(new Node<Character>((char) ((node + 1) % nodeCount)), 1));
+			if (withShortcuts)
+			{
+				ringGraphProcessor.addEdge(new Node<Character>((char) node),
+						new Edge<Character>(new Node<Character>((char) ((node + 2) % nodeCount)), 1));
+			}
+		}
+
+		return ringGraphProcessor;
+	}
+
+	private static GraphProcessor createCycleGraphProcessor(int distance)
+	{
+		GraphProcessor cycleGraphProcessor = new GraphProcessor();
+		cycleGraphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), distance));
+		cycleGraphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('A'), distance));
+		return cycleGraphProcessor;
+	}
+
+	private static GraphProcessor createDenseGraphProcessor()
+	{
+		GraphProcessor denseGraphProcessor = new GraphProcessor();
+		denseGraphProcessor.addEdge(new Node<Character>('X'), new Edge<Character>(new Node<Character>('X'), 1));
+		denseGraphProcessor.addEdge(new Node<Character>('X'), new Edge<Character>(new Node<Character>('Y'), 1));
+		denseGraphProcessor.addEdge(new Node<Character>('Y'), new Edge<Character>(new Node<Character>('X'), 1));
+		denseGraphProcessor.addEdge(new Node<Character>('Y'), new Edge<Character>(new Node<Character>('Y'), 1));
+		return denseGraphProcessor;
+	}
 }
@@ -0,0 +1,127 @@
+package graphproblem.logic;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import graphproblem.model.DistanceEstimate;
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link LandmarkDistanceOracle}.
+ *
+ * @author jojo
+ */
+public class LandmarkDistanceOracleTest
+{
+	private static final int NODE_COUNT = 1000;
+
+	private static LandmarkDistanceOracle oracle;
+	private static GraphProcessor randomGraphProcessor;
+	private static LandmarkDistanceOracle randomOracle;
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+		GraphProcessor graphProcessor = new GraphProcessor();
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), 5));
+		graphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 4));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('E'), 6));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('D'), 5));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('E'), 2));
+		graphProcessor.addEdge(new Node<Character>('E'), new Edge<Character>(new Node<Character>('B'), 3));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+		oracle = new LandmarkDistanceOracle(graphProcessor);
+
+		Random random = new Random(5);
+		randomGraphProcessor = new GraphProcessor();
+		for (int count = 0; count < 3 * NODE_COUNT; count++)
+		{
+			randomGraphProcessor.addEdge(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+					new Edge<Character>(new Node<Character>((char) random.nextInt(NODE_COUNT)),
+							1 + random.nextInt(100)));
+		}
+		randomOracle = new LandmarkDistanceOracle(randomGraphProcessor, 8);
+	}
+
+	/**
+	 * Testing exact distances of the sample graph, which has fewer nodes than
+	 * the default number of landmarks.
+	 */
+	@Test
+	public void testEstimate_SampleGraphExact()
+	{
+		assertThat(oracle.getLandmarkCount(), is(5));
+		assertThat(oracle.estimate(new Node<Character>('A'), new Node<Character>('C'), 1),
+				is(DistanceEstimate.exact(9)));
+		assertThat(oracle.estimate(new Node<Character>('B'), new Node<Character>('B'), 1),
+				is(DistanceEstimate.exact(9)));
+		assertThat(oracle.estimate(new Node<Character>('C'), new Node<Character>('A'), 1),
+				is(DistanceEstimate.disconnected()));
+		assertThat(oracle.estimate(new Node<Character>('A'), new Node<Character>('Z'), 1),
+				is(DistanceEstimate.disconnected()));
+	}
+
+	/**
+	 * Testing that estimates of a random graph stay within the requested
+	 * stretch of the shortest distance.
+	 */
+	@Test
+	public void testEstimate_RandomGraphWithinStretch()
+	{
+		Random random = new Random(17);
+		for (int count = 0; count < 500; count++)
+		{
+			Node<Character> node1 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+			Node<Character> node2 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+			int shortestDistance = randomGraphProcessor.findShortestDistance(node1, node2);
+
+			DistanceEstimate estimate = randomOracle.estimate(node1, node2, 1.5);
+			assertThat(estimate.getDistance() < 0, is(shortestDistance < 0));
+			if (shortestDistance >= 0)
+			{
+				assertThat(estimate.getLowerBound(), lessThanOrEqualTo(shortestDistance));
+				assertThat(estimate.getDistance(), greaterThanOrEqualTo(shortestDistance));
+				assertThat((double) estimate.getDistance(), lessThanOrEqualTo(1.5 * shortestDistance));
+				assertThat(estimate.getStretch(), lessThanOrEqualTo(1.5));
+			}
+		}
+	}
+
+	/**
+	 * Testing that a stretch of one falls back to the exact distance.
+	 */
+	@Test
+	public void testEstimate_RandomGraphExact()
+	{
+		Random random = new Random(19);
+		for (int count = 0; count < 500; count++)
+		{
+			Node<Character> node1 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+			Node<Character> node2 = new Node<Character>((char) random.nextInt(NODE_COUNT));
+
+			DistanceEstimate estimate = randomOracle.estimate(node1, node2, 1);
+			assertThat(estimate.isExact(), is(true));
+			assertThat(estimate.getDistance(),
+					is(randomGraphProcessor.findShortestDistance(node1, node2)));
+		}
+	}
+
+	/**
+	 * Testing that a stretch below one is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEstimate_InvalidStretch()
+	{
+		oracle.estimate(new Node<Character>('A'), new Node<Character>('C'), 0.5);
+	}
+}
@@ -0,0 +1,188 @@
+package graphproblem.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Checks that the search of
+ * {@link GraphProcessor#findShortestPathBasedOnDistance(Node, Node)} does not
+ * pay for {@link SearchProbe} by comparing it with a copy of the search
+ * outside {@link GraphProcessor}, before and after {@link RecordingSearchProbe}
+ * has been used by {@link GraphProcessor#withDiagnostics(boolean)}.
+ *
+ * <p>
+ * Run the main method on the test class path, optionally passing the number
+ * of nodes, which defaults to 10000. It is not a unit test and therefore not
+ * run by the build.
+ * </p>
+ *
+ * @author jojo
+ */
+public class SearchProbeBenchmark
+{
+	private static final int QUERY_COUNT = 2000;
+	private static final int ROUNDS = 8;
+
+	private static long checksum;
+
+	public static void main(String[] args)
+	{
+		int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		Random random = new Random(3);
+		GraphProcessor graphProcessor = new GraphProcessor();
+		for (int count = 0; count < 3 * nodeCount; count++)
+		{
+			Node<Character> child = new Node<Character>((char) random.nextInt(nodeCount));
+			graphProcessor.addEdge(new Node<Character>((char) random.nextInt(nodeCount)),
+					new Edge<Character>(child, 1 + random.nextInt(100)));
+		}
+
+		List<Node<Character>> queries = new ArrayList<Node<Character>>();
+		for (int count = 0; count < 2 * QUERY_COUNT; count++)
+		{
+			queries.add(new Node<Character>((char) random.nextInt(nodeCount)));
+		}
+
+		System.out.println("nodes: " + nodeCount + ", queries per measurement: " + QUERY_COUNT);
+		measure("before diagnostics", graphProcessor, queries);
+
+		GraphDiagnostics diagnostics = graphProcessor.withDiagnostics(false);
+		for (int count = 0; count < QUERY_COUNT; count++)
+		{
+			checksum += diagnostics.findShortestPathBasedOnDistance(queries.get(2 * count), queries.get(2 * count + 1))
+					.getValue();
+		}
+		measure("after diagnostics", graphProcessor, queries);
+		System.out.println("checksum: " + checksum);
+	}
+
+	private static void measure(String phase, GraphProcessor graphProcessor, List<Node<Character>> queries)
+	{
+		System.out.println(phase);
+		Map<Node<Character>, List<Edge<Character>>> adjacencyList = graphProcessor.getAdjacencyList();
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			// alternate the order, so that neither variant always runs on the
+			// garbage of the other.
+			long copy = 0;
+			long graphProcessorSearch = 0;
+			for (int pass = 0; pass < 2; pass++)
+			{
+				if ((round + pass) % 2 == 0)
+				{
+					copy = measureCopy(adjacencyList, queries);
+				}
+				else
+				{
+					graphProcessorSearch = measureGraphProcessor(graphProcessor, queries);
+				}
+			}
+
+			System.out.println(String.format("  round %d: copy %7d ns, GraphProcessor %7d ns (%+.1f%%)", round + 1,
+					copy, graphProcessorSearch, 100.0 * (graphProcessorSearch - copy) / copy));
+		}
+	}
+
+	private static long measureCopy(Map<Node<Character>, List<Edge<Character>>> adjacencyList,
+			List<Node<Character>> queries)
+	{
+		long start = System.nanoTime();
+		for (int count = 0; count < QUERY_COUNT; count++)
+		{
+			checksum += findShortestDistance(adjacencyList, queries.get(2 * count), queries.get(2 * count + 1));
+		}
+
+		return (System.nanoTime() - start) / QUERY_COUNT;
+	}
+
+	private static long measureGraphProcessor(GraphProcessor graphProcessor, List<Node<Character>> queries)
+	{
+		long start = System.nanoTime();
+		for (int count = 0; count < QUERY_COUNT; count++)
+		{
+			checksum += graphProcessor.findShortestDistance(queries.get(2 * count), queries.get(2 * count + 1));
+		}
+
+		return (System.nanoTime() - start) / QUERY_COUNT;
+	}
+
+	/**
+	 * A copy of the search of
+	 * {@link GraphProcessor#findShortestPathBasedOnDistance(Node, Node)}.
+	 */
+	private static int findShortestDistance(Map<Node<Character>, List<Edge<Character>>> adjacencyList,
+			Node<Character> node1, Node<Character> node2)
+	{
+		Map<Node<Character>, Integer> shortestDistanceByNode = new HashMap<Node<Character>, Integer>();
+		Queue<NodeDistance> queue = new PriorityQueue<NodeDistance>();
+
+		relaxEdges(adjacencyList, node1, 0, shortestDistanceByNode, queue);
+		while (!queue.isEmpty())
+		{
+			NodeDistance current = queue.remove();
+			if (current.distance > shortestDistanceByNode.get(current.node))
+			{
+				continue;
+			}
+
+			if (current.node.equals(node2))
+			{
+				break;
+			}
+
+			relaxEdges(adjacencyList, current.node, current.distance, shortestDistanceByNode, queue);
+		}
+
+		Integer shortestDistance = shortestDistanceByNode.get(node2);
+		return shortestDistance == null ? -1 : shortestDistance;
+	}
+
+	private static void relaxEdges(Map<Node<Character>, List<Edge<Character>>> adjacencyList,
+			Node<Character> parentNode, int parentDistance, Map<Node<Character>, Integer> shortestDistanceByNode,
+			Queue<NodeDistance> queue)
+	{
+		List<Edge<Character>> edges = adjacencyList.get(parentNode);
+		if (edges == null)
+		{
+			return;
+		}
+
+		for (Edge<Character> singleEdge : edges)
+		{
+			Node<Character> currentNode = singleEdge.getNode();
+			int currentCumulativeWeight = parentDistance + singleEdge.getDistance();
+			Integer prevCumulativeWeight = shortestDistanceByNode.get(currentNode);
+			if (prevCumulativeWeight == null || currentCumulativeWeight < prevCumulativeWeight)
+			{
+				shortestDistanceByNode.put(currentNode, currentCumulativeWeight);
+				queue.add(new NodeDistance(currentNode, currentCumulativeWeight));
+			}
+		}
+	}
+
+	private static final class NodeDistance implements Comparable<NodeDistance>
+	{
+		private final Node<Character> node;
+		private final int distance;
+
+		private NodeDistance(Node<Character> node, int distance)
+		{
+			this.node = node;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(NodeDistance other)
+		{
+			return Integer.compare(distance, other.distance);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package graphproblem.partition;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link GraphPartitioner}.
+ * 
+ * @author jojo
+ */
+public class GraphPartitionerTest
+{
+	/**
+	 * Testing that two rings joined by a single edge are split at that edge.
+	 */
+	@Test
+	public void testPartition_TwoRings()
+	{
+		Map<Node<Character>, List<Edge<Character>>> adjacencyList = new HashMap<Node<Character>, List<Edge<Character>>>();
+		addRing(adjacencyList, 'a', 8);
+		addRing(adjacencyList, 'A', 8);
+		addEdge(adjacencyList, 'a', 'A');
+
+		GraphPartition partition = new GraphPartitioner(2).partition(adjacencyList);
+
+		assertThat(partition.getEdgeCut(), is(1));
+		assertThat(partition.getShard(new Node<Character>('a')) == partition.getShard(new Node<Character>('h')),
+				is(true));
+		assertThat(partition.getShard(new Node<Character>('a')) == partition.getShard(new Node<Character>('A')),
+				is(false));
+		assertThat(partition.getBoundaryNodes(partition.getShard(new Node<Character>('a'))).size(), is(1));
+	}
+
+	/**
+	 * Testing that no shard grows beyond the allowed imbalance.
+	 */
+	@Test
+	public void testPartition_Balanced()
+	{
+		Map<Node<Character>, List<Edge<Character>>> adjacencyList = new HashMap<Node<Character>, List<Edge<Character>>>();
+		for (char from = 0; from < 100; from++)
+		{
+			for (char to = 0; to < 100; to += 7)
+			{
+				addEdge(adjacencyList, from, to);
+			}
+		}
+
+		GraphPartition partition = new GraphPartitioner(4, 20, 10).partition(adjacencyList);
+
+		int nodeCount = 0;
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			assertThat(partition.getNodes(shard).size(), lessThanOrEqualTo(28));
+			nodeCount += partition.getNodes(shard).size();
+		}
+		assertThat(nodeCount, is(100));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGraphPartitioner_NegativeImbalance()
+	{
+		new GraphPartitioner(2, 1, -1);
+	}
+
+	private static void addRing(Map<Node<Character>, List<Edge<Character>>> adjacencyList, char first, int size)
+	{
+		for (int count = 0; count < size; count++)
+		{
+			addEdge(adjacencyList, (char) (first + count), (char) (first + (count + 1) % size));
+		}
+	}
+
+	private static void addEdge(Map<Node<Character>, List<Edge<Character>>> adjacencyList, char from, char to)
+	{
+		Node<Character> node = new Node<Character>(from);
+		if (!adjacencyList.containsKey(node))
+		{
+			adjacencyList.put(node, new ArrayList<Edge<Character>>());
+		}
+		adjacencyList.get(node).add(new Edge<Character>(new Node<Character>(to), 1));
+	}
+}
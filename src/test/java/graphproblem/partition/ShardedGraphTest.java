@@ -0,0 +1,224 @@
+package graphproblem.partition;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Test;
+
+import graphproblem.logic.GraphProcessor;
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link ShardedGraph}.
+ * 
+ * @author jojo
+ */
+public class ShardedGraphTest
+{
+	/**
+	 * Testing the route and shortest distances of the sample graph split into
+	 * three shards.
+	 */
+	@Test
+	public void testSampleGraph()
+	{
+		GraphProcessor graphProcessor = createSampleGraphProcessor();
+		ShardedGraph shardedGraph = ShardedGraph.start(graphProcessor.getAdjacencyList(), new GraphPartitioner(3));
+		try
+		{
+			assertSampleGraph(shardedGraph);
+		}
+		finally
+		{
+			shardedGraph.close();
+		}
+	}
+
+	/**
+	 * Testing a custom {@link ShardTransport} whose workers only know the
+	 * edges of their own shard.
+	 */
+	@Test
+	public void testConnect_CustomTransport()
+	{
+		Map<Node<Character>, List<Edge<Character>>> adjacencyList = createSampleGraphProcessor().getAdjacencyList();
+		GraphPartition partition = new GraphPartitioner(3).partition(adjacencyList);
+		final List<ShardWorker> workers = new ArrayList<ShardWorker>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			ShardEdges shardEdges = partition.extractShard(shard, adjacencyList);
+			assertThat(partition.getNodes(shard).containsAll(shardEdges.getEdgesByNode().keySet()), is(true));
+			workers.add(new ShardWorker(shardEdges));
+		}
+
+		ShardedGraph shardedGraph = ShardedGraph.connect(partition, new ShardTransport()
+		{
+			@Override
+			public <T> Future<T> send(final int shard, final ShardRequest<T> request)
+			{
+				FutureTask<T> response = new FutureTask<T>(new Callable<T>()
+				{
+					@Override
+					public T call()
+					{
+						return workers.get(shard).handle(request);
+					}
+				});
+				response.run();
+				return response;
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		});
+		assertSampleGraph(shardedGraph);
+		shardedGraph.close();
+	}
+
+	/**
+	 * Testing a {@link ShardTransport} which serializes the {@link ShardEdges}
+	 * of every worker and every request and response, as a transport to other
+	 * processes would.
+	 */
+	@Test
+	public void testConnect_SerializingTransport()
+	{
+		Map<Node<Character>, List<Edge<Character>>> adjacencyList = createSampleGraphProcessor().getAdjacencyList();
+		GraphPartition partition = new GraphPartitioner(3).partition(adjacencyList);
+		final List<ShardWorker> workers = new ArrayList<ShardWorker>();
+		for (int shard = 0; shard < partition.getShardCount(); shard++)
+		{
+			workers.add(new ShardWorker((ShardEdges) copy(partition.extractShard(shard, adjacencyList))));
+		}
+
+		ShardedGraph shardedGraph = ShardedGraph.connect(partition, new ShardTransport()
+		{
+			@Override
+			public <T> Future<T> send(final int shard, final ShardRequest<T> request)
+			{
+				FutureTask<T> response = new FutureTask<T>(new Callable<T>()
+				{
+					@Override
+					@SuppressWarnings("unchecked")
+					public T call()
+					{
+						ShardRequest<T> receivedRequest = (ShardRequest<T>) copy(request);
+						return (T) copy(workers.get(shard).handle(receivedRequest));
+					}
+				});
+				response.run();
+				return response;
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		});
+		assertSampleGraph(shardedGraph);
+		shardedGraph.close();
+	}
+
+	private static Object copy(Object message)
+	{
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream output = new ObjectOutputStream(bytes);
+			output.writeObject(message);
+			output.close();
+			return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static GraphProcessor createSampleGraphProcessor()
+	{
+		GraphProcessor graphProcessor = new GraphProcessor();
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), 5));
+		graphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 4));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('E'), 6));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('D'), 5));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('E'), 2));
+		graphProcessor.addEdge(new Node<Character>('E'), new Edge<Character>(new Node<Character>('B'), 3));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+		return graphProcessor;
+	}
+
+	private static void assertSampleGraph(ShardedGraph shardedGraph)
+	{
+		assertThat(shardedGraph.findDistanceWithExactNodeStop(Arrays.asList(new Node<Character>('A'),
+				new Node<Character>('E'), new Node<Character>('B'), new Node<Character>('C'),
+				new Node<Character>('D'))), is(22));
+		assertThat(shardedGraph.findDistanceWithExactNodeStop(
+				Arrays.asList(new Node<Character>('A'), new Node<Character>('E'), new Node<Character>('D'))), is(-1));
+		assertThat(shardedGraph.findShortestPathBasedOnDistance(new Node<Character>('A'), new Node<Character>('C')),
+				is(9));
+		assertThat(shardedGraph.findShortestPathBasedOnDistance(new Node<Character>('B'), new Node<Character>('B')),
+				is(9));
+		assertThat(shardedGraph.findShortestPathBasedOnDistance(new Node<Character>('B'), new Node<Character>('A')),
+				is(-1));
+	}
+
+	/**
+	 * Testing that shortest distances on a random graph split into four shards
+	 * agree with {@link GraphProcessor}.
+	 */
+	@Test
+	public void testFindShortestPathBasedOnDistance_RandomGraph()
+	{
+		Random random = new Random(42);
+		GraphProcessor graphProcessor = new GraphProcessor();
+		for (int count = 0; count < 300; count++)
+		{
+			graphProcessor.addEdge(new Node<Character>((char) random.nextInt(80)),
+					new Edge<Character>(new Node<Character>((char) random.nextInt(80)), 1 + random.nextInt(20)));
+		}
+
+		ShardedGraph shardedGraph = ShardedGraph.start(graphProcessor.getAdjacencyList(), new GraphPartitioner(4));
+		try
+		{
+			for (char from = 0; from < 80; from += 3)
+			{
+				for (char to = 0; to < 80; to++)
+				{
+					assertThat(
+							shardedGraph.findShortestPathBasedOnDistance(new Node<Character>(from),
+									new Node<Character>(to)),
+							is(graphProcessor.findShortestPathBasedOnDistance(new Node<Character>(from),
+									new Node<Character>(to))));
+				}
+			}
+		}
+		finally
+		{
+			shardedGraph.close();
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package graphproblem.persistence;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Tests for {@link DurableGraphProcessor}.
+ *
+ * @author jojo
+ */
+public class DurableGraphProcessorTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Testing that edges are recovered from the log alone.
+	 */
+	@Test
+	public void testOpen_RecoversFromLog() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		DurableGraphProcessor graphProcessor = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		addSampleEdges(graphProcessor);
+		graphProcessor.close();
+
+		DurableGraphProcessor recovered = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		try
+		{
+			assertThat(recovered.findDistanceWithExactNodeStop(
+					Arrays.asList(new Node<Character>('A'), new Node<Character>('B'), new Node<Character>('C'))),
+					is(9));
+			assertThat(recovered.findShortestPathBasedOnDistance(new Node<Character>('B'), new Node<Character>('B')),
+					is(9));
+			assertThat(recovered.getAdjacencyList(), is(graphProcessor.getAdjacencyList()));
+		}
+		finally
+		{
+			recovered.close();
+		}
+	}
+
+	/**
+	 * Testing that edges are recovered from a snapshot and the log written
+	 * after it, and that the log segments covered by the snapshot are deleted.
+	 */
+	@Test
+	public void testOpen_RecoversFromSnapshotAndLog() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		DurableGraphProcessor graphProcessor = DurableGraphProcessor.open(directory, FsyncPolicy.NEVER, 1000);
+		addRandomEdges(graphProcessor, 2500, 1);
+		graphProcessor.snapshot();
+		addRandomEdges(graphProcessor, 10, 2);
+		graphProcessor.close();
+
+		assertThat(listFiles(directory, "snapshot-*.bin").size(), is(1));
+		assertThat(listFiles(directory, "edges-*.log").size(), is(1));
+
+		DurableGraphProcessor recovered = DurableGraphProcessor.open(directory, FsyncPolicy.NEVER, 1000);
+		try
+		{
+			assertThat(recovered.getAdjacencyList(), is(graphProcessor.getAdjacencyList()));
+		}
+		finally
+		{
+			recovered.close();
+		}
+	}
+
+	/**
+	 * Testing that an incomplete and a corrupt record at the end of the log
+	 * are dropped, and that the log can be continued afterwards.
+	 */
+	@Test
+	public void testOpen_DropsDamagedTail() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		DurableGraphProcessor graphProcessor = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		addSampleEdges(graphProcessor);
+		graphProcessor.close();
+
+		Path segment = listFiles(directory, "edges-*.log").get(0);
+		FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE);
+		try
+		{
+			// flips a bit of the distance of the last record and appends half
+			// a record.
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }), channel.size() - 5);
+			channel.write(ByteBuffer.wrap(new byte[EdgeLog.RECORD_SIZE / 2]), channel.size());
+		}
+		finally
+		{
+			channel.close();
+		}
+
+		DurableGraphProcessor recovered = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		assertThat(recovered.findDistanceWithExactNodeStop(
+				Arrays.asList(new Node<Character>('A'), new Node<Character>('E'))), is(-1));
+		recovered.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+		recovered.close();
+
+		DurableGraphProcessor reopened = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		try
+		{
+			assertThat(reopened.getAdjacencyList(), is(graphProcessor.getAdjacencyList()));
+		}
+		finally
+		{
+			reopened.close();
+		}
+	}
+
+	/**
+	 * Testing concurrent writers sharing group commits while background
+	 * snapshots are written.
+	 */
+	@Test
+	public void testAddEdge_ConcurrentWriters() throws Exception
+	{
+		Path directory = folder.getRoot().toPath();
+		final DurableGraphProcessor graphProcessor = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT,
+				300);
+		List<Thread> writers = new ArrayList<Thread>();
+		for (int writer = 0; writer < 4; writer++)
+		{
+			final int seed = writer;
+			writers.add(new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					addRandomEdges(graphProcessor, 500, seed);
+				}
+			}));
+		}
+
+		for (Thread writer : writers)
+		{
+			writer.start();
+		}
+		for (Thread writer : writers)
+		{
+			writer.join();
+		}
+		graphProcessor.close();
+
+		DurableGraphProcessor recovered = DurableGraphProcessor.open(directory, FsyncPolicy.EVERY_COMMIT);
+		try
+		{
+			Map<Node<Character>, List<Edge<Character>>> adjacencyList = recovered.getAdjacencyList();
+			int edgeCount = 0;
+			for (List<Edge<Character>> edges : adjacencyList.values())
+			{
+				edgeCount += edges.size();
+			}
+
+			assertThat(edgeCount, is(2000));
+			assertThat(adjacencyList, is(graphProcessor.getAdjacencyList()));
+		}
+		finally
+		{
+			recovered.close();
+		}
+	}
+
+	private static void addSampleEdges(DurableGraphProcessor graphProcessor)
+	{
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('B'), 5));
+		graphProcessor.addEdge(new Node<Character>('B'), new Edge<Character>(new Node<Character>('C'), 4));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('D'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('C'), 8));
+		graphProcessor.addEdge(new Node<Character>('D'), new Edge<Character>(new Node<Character>('E'), 6));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('D'), 5));
+		graphProcessor.addEdge(new Node<Character>('C'), new Edge<Character>(new Node<Character>('E'), 2));
+		graphProcessor.addEdge(new Node<Character>('E'), new Edge<Character>(new Node<Character>('B'), 3));
+		graphProcessor.addEdge(new Node<Character>('A'), new Edge<Character>(new Node<Character>('E'), 7));
+	}
+
+	private static void addRandomEdges(DurableGraphProcessor graphProcessor, int edgeCount, long seed)
+	{
+		Random random = new Random(seed);
+		for (int count = 0; count < edgeCount; count++)
+		{
+			graphProcessor.addEdge(new Node<Character>((char) random.nextInt(500)),
+					new Edge<Character>(new Node<Character>((char) random.nextInt(500)), 1 + random.nextInt(1000)));
+		}
+	}
+
+	private static List<Path> listFiles(Path directory, String glob) throws IOException
+	{
+		List<Path> files = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob);
+		try
+		{
+			for (Path file : stream)
+			{
+				files.add(file);
+			}
+		}
+		finally
+		{
+			stream.close();
+		}
+
+		Collections.sort(files);
+		return files;
+	}
+}
@@ -0,0 +1,117 @@
+package graphproblem.persistence;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link EdgeLog}.
+ *
+ * @author jojo
+ */
+public class EdgeLogTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Testing that every commit is forced before it returns.
+	 */
+	@Test
+	public void testAwaitDurable_EveryCommit() throws IOException
+	{
+		EdgeLog log = new EdgeLog(folder.getRoot().toPath(), FsyncPolicy.EVERY_COMMIT, 1);
+		try
+		{
+			long lsn = log.append('A', 'B', 5);
+			log.awaitDurable(lsn);
+			assertThat(log.getForcedLsn(), is(lsn));
+		}
+		finally
+		{
+			log.close();
+		}
+	}
+
+	/**
+	 * Testing that the last commit of a burst is forced in the background
+	 * although no further commit arrives.
+	 */
+	@Test(timeout = 10000)
+	public void testAwaitDurable_EverySecondForcesWhenIdle() throws IOException, InterruptedException
+	{
+		EdgeLog log = new EdgeLog(folder.getRoot().toPath(), FsyncPolicy.EVERY_SECOND, 1);
+		try
+		{
+			long lsn = 0;
+			for (int count = 0; count < 100; count++)
+			{
+				lsn = log.append('A', 'B', count + 1);
+				log.awaitDurable(lsn);
+			}
+
+			while (log.getForcedLsn() < lsn)
+			{
+				Thread.sleep(50);
+			}
+			assertThat(log.getForcedLsn(), is(lsn));
+		}
+		finally
+		{
+			log.close();
+		}
+	}
+
+	/**
+	 * Testing that switching the segment neither writes nor forces the old
+	 * segment, which only becomes durable once the rotation is finished.
+	 */
+	@Test
+	public void testSwitchSegment_FinishedLater() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		EdgeLog log = new EdgeLog(directory, FsyncPolicy.EVERY_COMMIT, 1);
+		long firstLsn;
+		long secondLsn;
+		try
+		{
+			firstLsn = log.append('A', 'B', 5);
+			EdgeLog.Rotation rotation = log.switchSegment();
+			secondLsn = log.append('B', 'C', 4);
+			assertThat(rotation.getLsn(), is(firstLsn));
+			assertThat(log.getForcedLsn(), is(0L));
+			assertThat(Files.size(directory.resolve("edges-00000000000000000001.log")), is(0L));
+
+			log.finishRotation(rotation);
+			assertThat(log.getForcedLsn(), is(firstLsn));
+			log.awaitDurable(secondLsn);
+			assertThat(log.getForcedLsn(), is(secondLsn));
+		}
+		finally
+		{
+			log.close();
+		}
+
+		final List<Integer> distances = new ArrayList<Integer>();
+		long lastLsn = EdgeLog.replay(directory, 0, new EdgeConsumer()
+		{
+			@Override
+			public void accept(char parent, char child, int distance)
+			{
+				distances.add(distance);
+			}
+		});
+		assertThat(lastLsn, is(secondLsn));
+		assertThat(distances.toString(), is("[5, 4]"));
+		assertThat(Files.size(directory.resolve("edges-00000000000000000002.log")), is((long) EdgeLog.RECORD_SIZE));
+	}
+}
@@ -0,0 +1,143 @@
+package graphproblem.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import graphproblem.logic.GraphProcessor;
+import graphproblem.model.Edge;
+import graphproblem.model.Node;
+
+/**
+ * Compares the time to rebuild a graph by re-ingesting its edge feed with the
+ * time to recover it with {@link DurableGraphProcessor#open(Path, FsyncPolicy)}
+ * from the log alone and from a snapshot plus a short log tail.
+ *
+ * <p>
+ * Run the main method on the test class path, optionally passing the number
+ * of edges, which defaults to 2000000. It is not a unit test and therefore
+ * not run by the build.
+ * </p>
+ *
+ * @author jojo
+ */
+public class RecoveryBenchmark
+{
+	private static final int NODE_COUNT = 10000;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException
+	{
+		int edgeCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		Path root = Files.createTempDirectory("recovery-benchmark");
+		try
+		{
+			Path feed = root.resolve("feed.txt");
+			Path logOnly = root.resolve("log-only");
+			Path snapshot = root.resolve("snapshot");
+			prepare(feed, logOnly, snapshot, edgeCount);
+
+			System.out.println("edges: " + edgeCount);
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				System.out.println("round " + (round + 1));
+				System.out.println("  re-ingest feed:          " + reingest(feed) + " ms");
+				System.out.println("  recover log only:        " + recover(logOnly) + " ms");
+				System.out.println("  recover snapshot + tail: " + recover(snapshot) + " ms");
+			}
+		}
+		finally
+		{
+			delete(root);
+		}
+	}
+
+	private static void prepare(Path feed, Path logOnly, Path snapshot, int edgeCount) throws IOException
+	{
+		DurableGraphProcessor withoutSnapshot = DurableGraphProcessor.open(logOnly, FsyncPolicy.NEVER,
+				Integer.MAX_VALUE);
+		DurableGraphProcessor withSnapshot = DurableGraphProcessor.open(snapshot, FsyncPolicy.NEVER, edgeCount / 10);
+		BufferedWriter writer = Files.newBufferedWriter(feed, StandardCharsets.UTF_8);
+		try
+		{
+			Random random = new Random(1);
+			for (int count = 0; count < edgeCount; count++)
+			{
+				int parent = random.nextInt(NODE_COUNT);
+				int child = random.nextInt(NODE_COUNT);
+				int distance = 1 + random.nextInt(100);
+				writer.write(parent + "," + child + "," + distance);
+				writer.newLine();
+
+				Node<Character> node = new Node<Character>((char) parent);
+				Edge<Character> edge = new Edge<Character>(new Node<Character>((char) child), distance);
+				withoutSnapshot.addEdge(node, edge);
+				withSnapshot.addEdge(node, edge);
+			}
+		}
+		finally
+		{
+			writer.close();
+			withoutSnapshot.close();
+			withSnapshot.close();
+		}
+	}
+
+	private static long reingest(Path feed) throws IOException
+	{
+		long start = System.nanoTime();
+		GraphProcessor graphProcessor = new GraphProcessor();
+		BufferedReader reader = Files.newBufferedReader(feed, StandardCharsets.UTF_8);
+		try
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				String[] fields = line.split(",");
+				graphProcessor.addEdge(new Node<Character>((char) Integer.parseInt(fields[0])), new Edge<Character>(
+						new Node<Character>((char) Integer.parseInt(fields[1])), Integer.parseInt(fields[2])));
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	private static long recover(Path directory) throws IOException
+	{
+		long start = System.nanoTime();
+		DurableGraphProcessor graphProcessor = DurableGraphProcessor.open(directory, FsyncPolicy.NEVER,
+				Integer.MAX_VALUE);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		graphProcessor.close();
+		return elapsed;
+	}
+
+	private static void delete(Path path) throws IOException
+	{
+		if (Files.isDirectory(path))
+		{
+			DirectoryStream<Path> stream = Files.newDirectoryStream(path);
+			try
+			{
+				for (Path child : stream)
+				{
+					delete(child);
+				}
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+		Files.delete(path);
+	}
+}
@@ -74,4 +74,26 @@ public class ArgumentCheckerTest
 	{
 		assertThat(ArgumentChecker.rejectIfLessThanOrEqualZero(1, "testVariable"), is(1));
 	}
-}
+
+	@Test
+	public void testRejectIfLessThanOrEqualZero_ZeroLongValue()
+	{
+		try
+		{
+			ArgumentChecker.rejectIfLessThanOrEqualZero(0L, "testValirable");
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertThat(e.getMessage(), is("testValirable cannot be less than or equal to zero."));
+			return;
+		}
+
+		fail("IllegalArgumentException was expected.");
+	}
+
+	@Test
+	public void testRejectIfLessThanOrEqualZero_GreaterThanZeroLongValue()
+	{
+		assertThat(ArgumentChecker.rejectIfLessThanOrEqualZero(Long.MAX_VALUE, "testVariable"), is(Long.MAX_VALUE));
+	}
+}
\ No newline at end of file